@@ -0,0 +1,108 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import algorithm.BenchmarkData.Distribution;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of the batch sorts of many small segments, in segments sorted per second.
+ * <p>
+ * Every invocation copies the generated segments and sorts all of them. The loop benchmarks call
+ * the single array sorts once per segment, for comparison with the batch sorts that share one
+ * set of counters. The batch sort runs inside a pool with the requested number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchSortBenchmark {
+
+  private static final int SEGMENTS = 10_000;
+
+  @Param({"16", "128", "512"})
+  private int segmentLength;
+
+  @Param({"256", "65536"})
+  private int range;
+
+  @Param({"1", "4"})
+  private int threads;
+
+  private ForkJoinPool pool;
+  private int[] data;
+  private int[] array;
+  private int[] offsets;
+
+  @Setup
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+    data = BenchmarkData.generate(SEGMENTS * segmentLength, range, Distribution.UNIFORM);
+    array = new int[data.length];
+    offsets = new int[SEGMENTS + 1];
+    for (int segment = 0; segment <= SEGMENTS; segment++) {
+      offsets[segment] = segment * segmentLength;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SEGMENTS)
+  public Object pigeonholeLoop() {
+    System.arraycopy(data, 0, array, 0, data.length);
+    for (int segment = 0; segment < SEGMENTS; segment++) {
+      int[] copy = Arrays.copyOfRange(array, offsets[segment], offsets[segment + 1]);
+      PigeonholeSort.sort(copy);
+      System.arraycopy(copy, 0, array, offsets[segment], copy.length);
+    }
+    return array;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SEGMENTS)
+  public Object sortSegments() {
+    System.arraycopy(data, 0, array, 0, data.length);
+    pool.submit(() -> PigeonholeSort.parallelSortSegments(array, offsets)).join();
+    return array;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SEGMENTS)
+  public Object arraysLoop() {
+    System.arraycopy(data, 0, array, 0, data.length);
+    for (int segment = 0; segment < SEGMENTS; segment++) {
+      Arrays.sort(array, offsets[segment], offsets[segment + 1]);
+    }
+    return array;
+  }
+}
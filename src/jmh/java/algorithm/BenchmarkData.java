@@ -0,0 +1,115 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Abstract class generating the arrays sorted by the benchmarks.
+ */
+public abstract class BenchmarkData {
+
+  /**
+   * Distributions of the generated values.
+   */
+  public enum Distribution {
+    /**
+     * Values uniformly distributed in the range.
+     */
+    UNIFORM,
+    /**
+     * Values approximately zipfian (s = 1) in the range, many small values and few large ones.
+     */
+    ZIPF,
+    /**
+     * Every value equal.
+     */
+    ALL_EQUAL,
+    /**
+     * Uniform values sorted in ascending order.
+     */
+    SORTED,
+    /**
+     * Uniform values sorted in descending order.
+     */
+    REVERSED
+  }
+
+  /**
+   * Layouts of the array to sort.
+   */
+  public enum Layout {
+    /**
+     * int[] sorted with the primitive methods.
+     */
+    PRIMITIVE,
+    /**
+     * Integer[] sorted with the generic methods.
+     */
+    BOXED
+  }
+
+  /**
+   * Generate an array of values between 0 and range, with a fixed seed so that every fork sorts
+   * the same data.
+   *
+   * @param length int: the length of the array
+   * @param range int: the number of possible values
+   * @param distribution Distribution: the distribution of the values
+   * @return int[]: the generated array
+   */
+  static int[] generate(int length, int range, Distribution distribution) {
+    SplittableRandom random = new SplittableRandom(42);
+    int[] values = new int[length];
+    double logRange = Math.log(range + 1.0);
+    for (int i = 0; i < length; i++) {
+      switch (distribution) {
+        case ZIPF:
+          values[i] = (int) Math.min(range - 1, Math.exp(random.nextDouble() * logRange) - 1);
+          break;
+        case ALL_EQUAL:
+          values[i] = range / 2;
+          break;
+        default:
+          values[i] = random.nextInt(range);
+      }
+    }
+    if (distribution == Distribution.SORTED || distribution == Distribution.REVERSED) {
+      Arrays.sort(values);
+    }
+    if (distribution == Distribution.REVERSED) {
+      for (int i = 0, j = length - 1; i < j; i++, j--) {
+        int swap = values[i];
+        values[i] = values[j];
+        values[j] = swap;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Box every value of an array.
+   *
+   * @param values int[]: the values to box
+   * @return Integer[]: the boxed values
+   */
+  static Integer[] box(int[] values) {
+    return Arrays.stream(values).boxed().toArray(Integer[]::new);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import algorithm.BenchmarkData.Distribution;
+import algorithm.BenchmarkData.Layout;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of the fork/join sorts against the JDK parallel sort.
+ * <p>
+ * The sorts run inside a pool with the requested number of threads. Both the pigeonhole and the
+ * JDK parallel sorts fork their tasks in the pool of the calling worker, so the thread count
+ * applies to both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelSortBenchmark {
+
+  @Param({"1000", "100000", "10000000", "100000000"})
+  private int length;
+
+  @Param({"256", "65536", "16777216"})
+  private int range;
+
+  @Param({"UNIFORM", "ZIPF", "ALL_EQUAL", "SORTED", "REVERSED"})
+  private Distribution distribution;
+
+  @Param({"PRIMITIVE", "BOXED"})
+  private Layout layout;
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  private int threads;
+
+  private ForkJoinPool pool;
+  private int[] data;
+  private int[] array;
+  private Integer[] boxedData;
+  private Integer[] boxedArray;
+
+  @Setup
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+    data = BenchmarkData.generate(length, range, distribution);
+    array = new int[length];
+    if (layout == Layout.BOXED) {
+      boxedData = BenchmarkData.box(data);
+      boxedArray = new Integer[length];
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public Object pigeonholeParallelSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      pool.submit(() -> PigeonholeSort.parallelSort(boxedArray, Integer::intValue)).join();
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    pool.submit(() -> PigeonholeSort.parallelSort(array)).join();
+    return array;
+  }
+
+  @Benchmark
+  public Object arraysParallelSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      pool.submit(() -> Arrays.parallelSort(boxedArray)).join();
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    pool.submit(() -> Arrays.parallelSort(array)).join();
+    return array;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import algorithm.BenchmarkData.Distribution;
+import algorithm.BenchmarkData.Layout;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the single threaded sorts against the JDK sort.
+ * <p>
+ * Every invocation first copies the generated data into the array to sort, so that each sort
+ * starts from the same input. The copy benchmark measures that cost alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SequentialSortBenchmark {
+
+  @Param({"1000", "100000", "10000000", "100000000"})
+  private int length;
+
+  @Param({"256", "65536", "16777216"})
+  private int range;
+
+  @Param({"UNIFORM", "ZIPF", "ALL_EQUAL", "SORTED", "REVERSED"})
+  private Distribution distribution;
+
+  @Param({"PRIMITIVE", "BOXED"})
+  private Layout layout;
+
+  private int[] data;
+  private int[] array;
+  private Integer[] boxedData;
+  private Integer[] boxedArray;
+
+  @Setup
+  public void setUp() {
+    data = BenchmarkData.generate(length, range, distribution);
+    array = new int[length];
+    if (layout == Layout.BOXED) {
+      boxedData = BenchmarkData.box(data);
+      boxedArray = new Integer[length];
+    }
+  }
+
+  /**
+   * Copy the input in the array to sort.
+   *
+   * @return Object: the array to sort, returned for avoiding dead code elimination
+   */
+  @Benchmark
+  public Object copy() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    return array;
+  }
+
+  @Benchmark
+  public Object pigeonholeSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      PigeonholeSort.sort(boxedArray, Integer::intValue);
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    PigeonholeSort.sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public Object radixSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      RadixSort.sort(boxedArray, Integer::intValue);
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    RadixSort.sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public Object adaptiveSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      return PigeonholeSort.sortAdaptive(boxedArray, Integer::intValue);
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    return PigeonholeSort.sortAdaptive(array);
+  }
+
+  @Benchmark
+  public Object arraysSort() {
+    if (layout == Layout.BOXED) {
+      System.arraycopy(boxedData, 0, boxedArray, 0, length);
+      Arrays.sort(boxedArray);
+      return boxedArray;
+    }
+    System.arraycopy(data, 0, array, 0, length);
+    Arrays.sort(array);
+    return array;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Pigeonhole counters that use a single byte for every pigeonhole.
+ * <p>
+ * When the range of values is wide and most pigeonholes contain few values, an int counter per
+ * pigeonhole wastes most of its bytes. Here every counter starts as a byte, and a counter that
+ * grows past 254 is promoted to an int stored in a small hash table at the side, marking its byte
+ * as saturated. A range of 2^28 values needs 256 MB instead of 1 GB, plus 8 bytes for every
+ * promoted pigeonhole.
+ */
+public final class CompactCounts implements HoleCounts {
+
+  /**
+   * Byte value of a counter promoted to the side table.
+   */
+  private static final int SATURATED = 0xFF;
+
+  /**
+   * Number of slots of the side table before the first promotion.
+   */
+  private static final int INITIAL_SLOTS = 16;
+
+  /**
+   * Key of an empty slot of the side table. Pigeonhole indexes are never negative.
+   */
+  private static final int EMPTY = -1;
+
+  /**
+   * Byte counter of every pigeonhole, read as unsigned.
+   */
+  private final byte[] counts;
+
+  /**
+   * Pigeonholes of the promoted counters, open addressing with linear probing.
+   */
+  private int[] promotedHoles;
+
+  /**
+   * Counters of the promoted pigeonholes, in the same slots of their pigeonholes.
+   */
+  private int[] promotedCounts;
+
+  /**
+   * Number of promoted counters.
+   */
+  private int promoted;
+
+  /**
+   * Allocate a new set of counters, all zero.
+   *
+   * @param holes long: the number of pigeonholes
+   * @throws IllegalArgumentException if the number of pigeonholes is not between 1 and the
+   * maximum length of an array
+   */
+  public CompactCounts(long holes) {
+    if (holes < 1 || holes > PigeonholeSort.MAX_HOLES) {
+      throw new IllegalArgumentException("Number of pigeonholes out of range: " + holes);
+    }
+    counts = new byte[(int) holes];
+    promotedHoles = new int[INITIAL_SLOTS];
+    promotedCounts = new int[INITIAL_SLOTS];
+    Arrays.fill(promotedHoles, EMPTY);
+  }
+
+  /**
+   * Get the number of pigeonholes.
+   *
+   * @return long: the number of pigeonholes
+   */
+  @Override
+  public long holes() {
+    return counts.length;
+  }
+
+  /**
+   * Get the number of counters promoted to the side table.
+   *
+   * @return int: the number of promoted counters
+   */
+  public int promoted() {
+    return promoted;
+  }
+
+  /**
+   * Increment the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   */
+  @Override
+  public void increment(long hole) {
+    int index = (int) hole;
+    int count = counts[index] & 0xFF;
+    if (count < SATURATED - 1) {
+      counts[index]++;
+    } else if (count == SATURATED - 1) {
+      counts[index] = (byte) SATURATED;
+      promote(index, SATURATED);
+    } else {
+      promotedCounts[slot(index)]++;
+    }
+  }
+
+  /**
+   * Get the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   * @return int: the counter
+   */
+  @Override
+  public int get(long hole) {
+    int index = (int) hole;
+    int count = counts[index] & 0xFF;
+    return count < SATURATED ? count : promotedCounts[slot(index)];
+  }
+
+  /**
+   * Nothing to release, the counters are on the heap.
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Move a counter to the side table, growing the table when it gets half full.
+   *
+   * @param hole int: the index of the pigeonhole
+   * @param count int: the counter
+   */
+  private void promote(int hole, int count) {
+    if (2 * (promoted + 1) > promotedHoles.length) {
+      int[] oldHoles = promotedHoles;
+      int[] oldCounts = promotedCounts;
+      promotedHoles = new int[2 * oldHoles.length];
+      promotedCounts = new int[2 * oldHoles.length];
+      Arrays.fill(promotedHoles, EMPTY);
+      for (int slot = 0; slot < oldHoles.length; slot++) {
+        if (oldHoles[slot] != EMPTY) {
+          int newSlot = slot(oldHoles[slot]);
+          promotedHoles[newSlot] = oldHoles[slot];
+          promotedCounts[newSlot] = oldCounts[slot];
+        }
+      }
+    }
+    int slot = slot(hole);
+    promotedHoles[slot] = hole;
+    promotedCounts[slot] = count;
+    promoted++;
+  }
+
+  /**
+   * Find the slot of the side table holding a pigeonhole, or the empty slot where it goes.
+   *
+   * @param hole int: the index of the pigeonhole
+   * @return int: the slot
+   */
+  private int slot(int hole) {
+    int mask = promotedHoles.length - 1;
+    //spread consecutive pigeonholes over the table
+    int hash = hole * 0x9E3779B9;
+    int slot = (hash ^ hash >>> 16) & mask;
+    while (promotedHoles[slot] != hole && promotedHoles[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Immutable set of distinct int keys stored as a bitset, one bit for every pigeonhole between the
+ * minimum and the maximum key.
+ * <p>
+ * The bitset is 32 times smaller than int counters and covers any range up to the full int range.
+ * Building it costs O(n + range / 64), a membership test is a single bit lookup and the keys are
+ * enumerated in ascending order by scanning whole words with
+ * {@link Long#numberOfTrailingZeros(long)}, skipping 64 empty pigeonholes at a time.
+ */
+public final class DistinctKeySet {
+
+  /**
+   * Base 2 logarithm of the number of bits of a word.
+   */
+  private static final int WORD_SHIFT = 6;
+
+  /**
+   * Bit of every pigeonhole, pigeonhole i is bit i % 64 of word i / 64.
+   */
+  private final long[] words;
+
+  /**
+   * Key of the first pigeonhole.
+   */
+  private final int min;
+
+  /**
+   * Maximum key, or min - 1 when the set is empty.
+   */
+  private final int max;
+
+  /**
+   * Number of distinct keys.
+   */
+  private final int size;
+
+  /**
+   * Build the set of the distinct keys of an array.
+   *
+   * @param keys int[]: the keys, in any order and with any number of duplicates
+   */
+  public DistinctKeySet(int[] keys) {
+    if (keys.length == 0) {
+      words = new long[0];
+      min = 0;
+      max = -1;
+      size = 0;
+      return;
+    }
+    int keysMin = keys[0];
+    int keysMax = keysMin;
+    for (int key : keys) {
+      if (key < keysMin) {
+        keysMin = key;
+      } else if (key > keysMax) {
+        keysMax = key;
+      }
+    }
+    min = keysMin;
+    max = keysMax;
+    long holes = (long) max - min + 1;
+    words = new long[(int) ((holes + Long.SIZE - 1) >>> WORD_SHIFT)];
+    for (int key : keys) {
+      long hole = (long) key - min;
+      words[(int) (hole >>> WORD_SHIFT)] |= 1L << hole;
+    }
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    size = count;
+  }
+
+  /**
+   * Check if a key is in the set.
+   *
+   * @param key int: the key to look for
+   * @return boolean: true if the key is in the set
+   */
+  public boolean contains(int key) {
+    if (key < min || key > max) {
+      return false;
+    }
+    long hole = (long) key - min;
+    return (words[(int) (hole >>> WORD_SHIFT)] & 1L << hole) != 0;
+  }
+
+  /**
+   * Get the number of distinct keys.
+   *
+   * @return int: the number of keys in the set
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the distinct keys in ascending order.
+   *
+   * @return int[]: the sorted keys, without duplicates
+   */
+  public int[] toArray() {
+    int[] keys = new int[size];
+    int i = 0;
+    for (int word = 0; word < words.length; word++) {
+      long bits = words[word];
+      long base = (long) min + ((long) word << WORD_SHIFT);
+      while (bits != 0) {
+        keys[i++] = (int) (base + Long.numberOfTrailingZeros(bits));
+        //clear the lowest set bit
+        bits &= bits - 1;
+      }
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Abstract class containing a pigeonhole sort for text files that don't fit in memory. The files
+ * contain one integer per line, like the files read by the visualization, and are parsed with
+ * {@link IntFiles#forEachText(Path, java.util.function.IntConsumer)}.
+ * <p>
+ * A first streaming pass finds minimum and maximum of the values. When the counters of the
+ * whole range fit in the memory budget, a second pass builds the histogram of the values and the
+ * output is written directly from the counters. Otherwise the second pass spills every value to a
+ * temporary binary file of its partition of the range, and the partitions are then sorted one at
+ * a time in the same way. Memory is bounded by the range of values, never by the number of
+ * values.
+ */
+public abstract class ExternalPigeonholeSort {
+
+  /**
+   * Default number of bytes that the counters are allowed to use.
+   */
+  public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+  /**
+   * Bytes used by the counter of a single pigeonhole. Counters are long because a file can have
+   * more than Integer.MAX_VALUE equal values.
+   */
+  private static final int BYTES_PER_HOLE = Long.BYTES;
+
+  /**
+   * Maximum number of temporary partition files written at the same time.
+   */
+  private static final int MAX_PARTITIONS = 1024;
+
+  /**
+   * Sort the integers of a text file with the default memory budget.
+   *
+   * @param input Path: the file to sort, one integer per line
+   * @param output Path: the file where the sorted integers are written, one per line
+   * @throws IOException if a file can't be read or written
+   * @throws NumberFormatException if the file contains something that is not an integer
+   * @see #sort(Path, Path, long)
+   */
+  public static void sort(Path input, Path output) throws IOException {
+    sort(input, output, DEFAULT_MEMORY_BUDGET);
+  }
+
+  /**
+   * Sort the integers of a text file without loading it in memory.
+   *
+   * @param input Path: the file to sort, one integer per line
+   * @param output Path: the file where the sorted integers are written, one per line
+   * @param memoryBudget long: the maximum number of bytes used by the counters
+   * @throws IOException if a file can't be read or written
+   * @throws NumberFormatException if the file contains something that is not an integer
+   * @throws IllegalArgumentException if the memory budget needs more than 1024 partitions for
+   * the range of values of the file
+   */
+  public static void sort(Path input, Path output, long memoryBudget) throws IOException {
+    int holesPerPartition = (int) Math.max(1, Math.min(PigeonholeSort.MAX_HOLES,
+        memoryBudget / BYTES_PER_HOLE));
+    long[] minMax = getMinMax(input);
+    try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+      if (minMax == null) {
+        return;
+      }
+      long holes = minMax[1] - minMax[0] + 1;
+      if (holes <= holesPerPartition) {
+        long[] counts = new long[(int) holes];
+        IntFiles.forEachText(input, value -> counts[(int) (value - minMax[0])]++);
+        writeCounts(writer, counts, minMax[0]);
+      } else {
+        sortPartitions(input, writer, minMax[0], holes, holesPerPartition);
+      }
+    }
+  }
+
+  /**
+   * Get minimum and maximum value of a text file with a single streaming scan.
+   *
+   * @param input Path: the file to scan, one integer per line
+   * @return long[]: array of two elements, the minimum and the maximum, or null if the file is
+   * empty
+   * @throws IOException if the file can't be read
+   */
+  private static long[] getMinMax(Path input) throws IOException {
+    long[] minMax = {Long.MAX_VALUE, Long.MIN_VALUE};
+    IntFiles.forEachText(input, value -> {
+      minMax[0] = Math.min(minMax[0], value);
+      minMax[1] = Math.max(minMax[1], value);
+    });
+    return minMax[0] <= minMax[1] ? minMax : null;
+  }
+
+  /**
+   * Spill every value of the text file to the temporary file of its partition, then sort the
+   * partitions one by one from the lowest to the highest.
+   *
+   * @param input Path: the file to sort, one integer per line
+   * @param writer Writer: where the sorted integers are written
+   * @param min long: the minimum value of the file
+   * @param holes long: the number of pigeonholes of the whole range
+   * @param holesPerPartition int: the number of pigeonholes of a partition
+   * @throws IOException if a file can't be read or written
+   */
+  private static void sortPartitions(Path input, Writer writer, long min, long holes,
+      int holesPerPartition) throws IOException {
+    long partitionsCount = (holes + holesPerPartition - 1) / holesPerPartition;
+    if (partitionsCount > MAX_PARTITIONS) {
+      throw new IllegalArgumentException(
+          "Memory budget too small for " + holes + " values, increase it");
+    }
+    int partitions = (int) partitionsCount;
+    Path directory = Files.createTempDirectory("pigeonhole");
+    Path[] partitionFiles = new Path[partitions];
+    DataOutputStream[] spills = new DataOutputStream[partitions];
+    try {
+      for (int partition = 0; partition < partitions; partition++) {
+        partitionFiles[partition] = directory.resolve(partition + ".bin");
+        spills[partition] = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(partitionFiles[partition])));
+      }
+      try {
+        IntFiles.forEachText(input, value -> {
+          try {
+            spills[(int) ((value - min) / holesPerPartition)].writeInt(value);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      for (DataOutputStream spill : spills) {
+        spill.close();
+      }
+      for (int partition = 0; partition < partitions; partition++) {
+        long partitionMin = min + (long) partition * holesPerPartition;
+        long[] counts = new long[(int) Math.min(holesPerPartition, holes - partitionMin + min)];
+        try (DataInputStream reader = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(partitionFiles[partition])))) {
+          while (true) {
+            counts[(int) (reader.readInt() - partitionMin)]++;
+          }
+        } catch (EOFException endOfPartition) {
+          //every value of the partition has been counted
+        }
+        Files.delete(partitionFiles[partition]);
+        writeCounts(writer, counts, partitionMin);
+      }
+    } finally {
+      for (int partition = 0; partition < partitions; partition++) {
+        if (spills[partition] != null) {
+          spills[partition].close();
+        }
+        if (partitionFiles[partition] != null) {
+          Files.deleteIfExists(partitionFiles[partition]);
+        }
+      }
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  /**
+   * Write every value of a range as many times as its counter, one per line.
+   *
+   * @param writer Writer: where the values are written
+   * @param counts long[]: the counter of every pigeonhole
+   * @param min long: the value of the first pigeonhole
+   * @throws IOException if the values can't be written
+   */
+  private static void writeCounts(Writer writer, long[] counts, long min) throws IOException {
+    for (int hole = 0; hole < counts.length; hole++) {
+      long count = counts[hole];
+      if (count > 0) {
+        String line = (min + hole) + "\n";
+        for (long i = 0; i < count; i++) {
+          writer.write(line);
+        }
+      }
+    }
+  }
+}
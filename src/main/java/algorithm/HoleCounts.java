@@ -0,0 +1,56 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Storage for the counters of the pigeonholes, used when a plain int array is too big or can't
+ * address the whole range.
+ *
+ * @see OffHeapCounts
+ * @see CompactCounts
+ */
+public interface HoleCounts extends AutoCloseable {
+
+  /**
+   * Get the number of pigeonholes.
+   *
+   * @return long: the number of pigeonholes
+   */
+  long holes();
+
+  /**
+   * Increment the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   */
+  void increment(long hole);
+
+  /**
+   * Get the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   * @return int: the counter
+   */
+  int get(long hole);
+
+  /**
+   * Release the memory of the counters.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Abstract class containing fast readers and writers of integer files.
+ * <p>
+ * Text files contain ASCII integers separated by whitespace, usually one per line like
+ * input.txt. They are read in chunks through a {@link FileChannel} and the digits are parsed
+ * directly, without creating a String for every value.
+ * <p>
+ * Binary files start with a 8 bytes header, the magic number "PHSI" followed by the number of
+ * values, then contain the values. Every number is a little endian int. Binary files are memory
+ * mapped and copied into the array without any parsing.
+ */
+public abstract class IntFiles {
+
+  /**
+   * Magic number at the start of a binary file, the ASCII string "PHSI" read as a little endian
+   * int.
+   */
+  static final int BINARY_MAGIC = 0x49534850;
+
+  /**
+   * Number of bytes of the header of a binary file.
+   */
+  static final int BINARY_HEADER_BYTES = 2 * Integer.BYTES;
+
+  /**
+   * Number of bytes read from a text file at a time.
+   */
+  private static final int CHUNK_BYTES = 1 << 16;
+
+  /**
+   * Maximum number of bytes of a binary file mapped at a time.
+   */
+  private static final int MAPPED_BYTES = 1 << 30;
+
+  /**
+   * Call an action for every integer of a text file, in file order. Memory used doesn't depend
+   * on the size of the file.
+   *
+   * @param file Path: the text file to read
+   * @param action IntConsumer: the action called with every integer
+   * @throws IOException if the file can't be read
+   * @throws NumberFormatException if the file contains something that is not an integer
+   */
+  public static void forEachText(Path file, IntConsumer action) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES);
+      long position = 0;
+      long value = 0;
+      int digits = 0;
+      boolean negative = false;
+      boolean signed = false;
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          byte character = buffer.get();
+          if (character >= '0' && character <= '9') {
+            value = value * 10 + (character - '0');
+            digits++;
+            if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+              throw new NumberFormatException("Value out of int range at byte " + position);
+            }
+          } else if (character == '-' && !signed && digits == 0) {
+            negative = true;
+            signed = true;
+          } else if (isWhitespace(character)) {
+            if (digits > 0) {
+              action.accept((int) (negative ? -value : value));
+            } else if (signed) {
+              throw new NumberFormatException("Sign without digits at byte " + position);
+            }
+            value = 0;
+            digits = 0;
+            negative = false;
+            signed = false;
+          } else {
+            throw new NumberFormatException(
+                "Invalid character '" + (char) character + "' at byte " + position);
+          }
+          position++;
+        }
+        buffer.clear();
+      }
+      if (digits > 0) {
+        action.accept((int) (negative ? -value : value));
+      } else if (signed) {
+        throw new NumberFormatException("Sign without digits at byte " + position);
+      }
+    }
+  }
+
+  /**
+   * Check if a character separates two integers of a text file.
+   *
+   * @param character byte: the ASCII character
+   * @return boolean: true for spaces, tabs and line terminators
+   */
+  private static boolean isWhitespace(byte character) {
+    return character == '\n' || character == '\r' || character == ' ' || character == '\t';
+  }
+
+  /**
+   * Read all the integers of a text file.
+   *
+   * @param file Path: the text file to read
+   * @return int[]: the integers, in file order
+   * @throws IOException if the file can't be read
+   * @throws NumberFormatException if the file contains something that is not an integer
+   */
+  public static int[] readText(Path file) throws IOException {
+    IntArrayBuilder builder = new IntArrayBuilder();
+    forEachText(file, builder);
+    return builder.toArray();
+  }
+
+  /**
+   * Growable array of integers filled by {@link #readText(Path)}.
+   */
+  private static final class IntArrayBuilder implements IntConsumer {
+
+    private int[] values = new int[1024];
+    private int size;
+
+    @Override
+    public void accept(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, (int) Math.min(PigeonholeSort.MAX_HOLES, 2L * size));
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  /**
+   * Read all the integers of a binary file.
+   *
+   * @param file Path: the binary file to read
+   * @return int[]: the integers, in file order
+   * @throws IOException if the file can't be read or is not a valid binary file
+   */
+  public static int[] readBinary(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < BINARY_HEADER_BYTES) {
+        throw new IOException("Binary file too short: " + file);
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      int count = header.getInt(Integer.BYTES);
+      if (header.getInt(0) != BINARY_MAGIC || count < 0
+          || size != BINARY_HEADER_BYTES + (long) count * Integer.BYTES) {
+        throw new IOException("Not a valid binary int file: " + file);
+      }
+      int[] values = new int[count];
+      int read = 0;
+      while (read < count) {
+        int length = Math.min(count - read, MAPPED_BYTES / Integer.BYTES);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+            BINARY_HEADER_BYTES + (long) read * Integer.BYTES, (long) length * Integer.BYTES);
+        mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, read, length);
+        read += length;
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Write integers to a binary file, replacing it if it already exists.
+   *
+   * @param file Path: the binary file to write
+   * @param values int[]: the integers to write
+   * @throws IOException if the file can't be written
+   */
+  public static void writeBinary(Path file, int[] values) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(BINARY_MAGIC).putInt(values.length);
+      for (int value : values) {
+        if (!buffer.hasRemaining()) {
+          writeFully(channel, buffer);
+        }
+        buffer.putInt(value);
+      }
+      writeFully(channel, buffer);
+    }
+  }
+
+  /**
+   * Write the content of a buffer to a channel and clear the buffer.
+   *
+   * @param channel FileChannel: the channel to write to
+   * @param buffer ByteBuffer: the buffer to write, in write mode
+   * @throws IOException if the channel can't be written
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Pigeonhole counters stored outside of the java heap, in direct {@link ByteBuffer}s.
+ * <p>
+ * A java array can't have more than Integer.MAX_VALUE elements, while these counters are split
+ * in segments of 2^28 counters each and address up to 2^32 pigeonholes, every possible int value.
+ * The memory is not scanned by the garbage collector and it's released as soon as the counters
+ * are closed. Direct memory is limited by the -XX:MaxDirectMemorySize option of the JVM, that
+ * defaults to the maximum heap size.
+ */
+public final class OffHeapCounts implements HoleCounts {
+
+  /**
+   * Maximum number of pigeonholes, one for every int value.
+   */
+  public static final long MAX_HOLES = 1L << Integer.SIZE;
+
+  /**
+   * Base 2 logarithm of the number of counters of a segment. A segment is 1 GB.
+   */
+  private static final int SEGMENT_SHIFT = 28;
+
+  /**
+   * Mask selecting the index of a counter inside its segment.
+   */
+  private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+  /**
+   * Method releasing the memory of a direct buffer, null if it's not available on this JVM.
+   */
+  private static final Method INVOKE_CLEANER;
+
+  /**
+   * Instance of sun.misc.Unsafe used for releasing memory, null if it's not available.
+   */
+  private static final Object UNSAFE;
+
+  static {
+    Method invokeCleaner = null;
+    Object unsafe = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      //memory will be released by the garbage collector
+    }
+    INVOKE_CLEANER = invokeCleaner;
+    UNSAFE = unsafe;
+  }
+
+  /**
+   * Number of pigeonholes.
+   */
+  private final long holes;
+
+  /**
+   * Direct buffers holding the memory of the counters.
+   */
+  private ByteBuffer[] buffers;
+
+  /**
+   * Int views of the buffers.
+   */
+  private IntBuffer[] segments;
+
+  /**
+   * Allocate a new set of counters, all zero.
+   *
+   * @param holes long: the number of pigeonholes
+   * @throws IllegalArgumentException if the number of pigeonholes is not between 1 and 2^32
+   * @throws OutOfMemoryError if there's not enough direct memory
+   */
+  public OffHeapCounts(long holes) {
+    if (holes < 1 || holes > MAX_HOLES) {
+      throw new IllegalArgumentException("Number of pigeonholes out of range: " + holes);
+    }
+    this.holes = holes;
+    int segmentsCount = (int) ((holes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    buffers = new ByteBuffer[segmentsCount];
+    segments = new IntBuffer[segmentsCount];
+    try {
+      for (int segment = 0; segment < segmentsCount; segment++) {
+        long counters = Math.min(1L << SEGMENT_SHIFT, holes - ((long) segment << SEGMENT_SHIFT));
+        buffers[segment] = ByteBuffer.allocateDirect((int) (counters * Integer.BYTES))
+            .order(ByteOrder.nativeOrder());
+        segments[segment] = buffers[segment].asIntBuffer();
+      }
+    } catch (OutOfMemoryError e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of pigeonholes.
+   *
+   * @return long: the number of pigeonholes
+   */
+  @Override
+  public long holes() {
+    return holes;
+  }
+
+  /**
+   * Increment the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   * @throws IllegalStateException if the counters have been closed
+   */
+  @Override
+  public void increment(long hole) {
+    IntBuffer segment = segment(hole);
+    int index = (int) (hole & SEGMENT_MASK);
+    segment.put(index, segment.get(index) + 1);
+  }
+
+  /**
+   * Get the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   * @return int: the counter
+   * @throws IllegalStateException if the counters have been closed
+   */
+  @Override
+  public int get(long hole) {
+    return segment(hole).get((int) (hole & SEGMENT_MASK));
+  }
+
+  /**
+   * Get the segment containing the counter of a pigeonhole.
+   *
+   * @param hole long: the index of the pigeonhole
+   * @return IntBuffer: the segment
+   */
+  private IntBuffer segment(long hole) {
+    if (segments == null) {
+      throw new IllegalStateException("Counters already closed");
+    }
+    return segments[(int) (hole >>> SEGMENT_SHIFT)];
+  }
+
+  /**
+   * Release the memory of the counters. Further accesses fail. Closing twice has no effect.
+   */
+  @Override
+  public void close() {
+    ByteBuffer[] released = buffers;
+    buffers = null;
+    segments = null;
+    if (released != null && INVOKE_CLEANER != null) {
+      for (ByteBuffer buffer : released) {
+        if (buffer != null) {
+          try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+          } catch (ReflectiveOperationException e) {
+            //memory will be released by the garbage collector
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Abstract class containing the fork/join implementation of pigeonhole sort used by
+ * {@link PigeonholeSort#parallelSort(int[])} and its overloads.
+ * <p>
+ * The array is split in one chunk per worker thread. Every chunk computes its own minimum and
+ * maximum and its own histogram of counts. The histograms are merged with a prefix sum computed
+ * in parallel over blocks of pigeonholes, then every chunk writes its elements back. Tasks run on
+ * the pool of the calling thread, or on the common pool when the caller is not a pool worker.
+ */
+abstract class ParallelPigeonholeSort {
+
+  /**
+   * Action that runs a body for every index in a range, splitting the range in halves until a
+   * single index is left.
+   */
+  private static final class ForEachAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final IntConsumer body;
+
+    ForEachAction(int from, int to, IntConsumer body) {
+      this.from = from;
+      this.to = to;
+      this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        body.accept(from);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ForEachAction(from, middle, body), new ForEachAction(middle, to, body));
+      }
+    }
+  }
+
+  /**
+   * Run the body for every index between 0 and count in parallel and wait for all of them.
+   *
+   * @param count int: the number of indexes
+   * @param body IntConsumer: the action to run for every index
+   */
+  private static void forEach(int count, IntConsumer body) {
+    new ForEachAction(0, count, body).invoke();
+  }
+
+  /**
+   * Get the number of chunks an array has to be split in. It's the parallelism of the pool that
+   * will run the tasks, reduced so that every chunk has at least threshold elements.
+   *
+   * @param length int: the length of the array to sort
+   * @param threshold int: the minimum number of elements of a chunk
+   * @return int: the number of chunks, 1 if the array should be sorted sequentially
+   */
+  private static int chunksCount(int length, int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Sequential threshold must be positive: " + threshold);
+    }
+    ForkJoinPool pool = ForkJoinTask.getPool();
+    int parallelism = (pool != null ? pool : ForkJoinPool.commonPool()).getParallelism();
+    return Math.min(parallelism, length / threshold);
+  }
+
+  /**
+   * Get the number of histograms to use, so that the memory of the per chunk histograms stays
+   * proportional to the length of the array even when the range of values is wide.
+   *
+   * @param chunks int: the number of chunks
+   * @param length int: the length of the array to sort
+   * @param holes int: the number of pigeonholes
+   * @return int: the number of histograms, between 1 and chunks
+   */
+  private static int histogramsCount(int chunks, int length, int holes) {
+    return (int) Math.max(1, Math.min(chunks, 2L * length / holes));
+  }
+
+  /**
+   * Get the first index of a chunk. Chunk sizes differ at most by one.
+   *
+   * @param chunk int: the chunk index, chunks for the end of the last chunk
+   * @param chunks int: the number of chunks
+   * @param length int: the length of the split array
+   * @return int: the first index of the chunk
+   */
+  private static int chunkStart(int chunk, int chunks, int length) {
+    return (int) ((long) length * chunk / chunks);
+  }
+
+  /**
+   * Count the values of every chunk into a histogram of its own.
+   *
+   * @param histograms int: the number of histograms and chunks
+   * @param holes int: the number of pigeonholes
+   * @param length int: the length of the array to sort
+   * @param countChunk HistogramFiller: the function that fills a histogram
+   * @return int[][]: one array of counters for each chunk
+   */
+  private static int[][] fillHistograms(int histograms, int holes, int length,
+      HistogramFiller countChunk) {
+    int[][] counts = new int[histograms][];
+    forEach(histograms, chunk -> {
+      counts[chunk] = new int[holes];
+      countChunk.fill(counts[chunk], chunkStart(chunk, histograms, length),
+          chunkStart(chunk + 1, histograms, length));
+    });
+    return counts;
+  }
+
+  /**
+   * Function filling the histogram of the elements between two indexes.
+   */
+  private interface HistogramFiller {
+
+    void fill(int[] counts, int from, int to);
+  }
+
+  /**
+   * Sum all the histograms into the first one and compute, in parallel over blocks of
+   * pigeonholes, the index where every block starts.
+   *
+   * @param counts int[][]: the histograms, the first one is overwritten with the totals
+   * @param blocks int: the number of blocks of pigeonholes
+   * @return int[]: the starting index of every block
+   */
+  private static int[] mergeHistograms(int[][] counts, int blocks) {
+    int holes = counts[0].length;
+    int[] blockStarts = new int[blocks];
+    forEach(blocks, block -> {
+      int total = 0;
+      int end = chunkStart(block + 1, blocks, holes);
+      for (int hole = chunkStart(block, blocks, holes); hole < end; hole++) {
+        int sum = counts[0][hole];
+        for (int chunk = 1; chunk < counts.length; chunk++) {
+          sum += counts[chunk][hole];
+        }
+        counts[0][hole] = sum;
+        total += sum;
+      }
+      blockStarts[block] = total;
+    });
+    PigeonholeSort.toOffsets(blockStarts);
+    return blockStarts;
+  }
+
+  /**
+   * Replace, in parallel over blocks of pigeonholes, every counter of every histogram with the
+   * index where the first element of that chunk and pigeonhole has to be written. Inside a
+   * pigeonhole the chunks are in array order, so a scatter that uses these offsets is stable.
+   *
+   * @param counts int[][]: the histograms to transform in place
+   * @param blocks int: the number of blocks of pigeonholes
+   */
+  private static void toOffsets(int[][] counts, int blocks) {
+    int holes = counts[0].length;
+    int[] blockStarts = new int[blocks];
+    forEach(blocks, block -> {
+      int total = 0;
+      int end = chunkStart(block + 1, blocks, holes);
+      for (int hole = chunkStart(block, blocks, holes); hole < end; hole++) {
+        for (int[] histogram : counts) {
+          total += histogram[hole];
+        }
+      }
+      blockStarts[block] = total;
+    });
+    PigeonholeSort.toOffsets(blockStarts);
+    forEach(blocks, block -> {
+      int offset = blockStarts[block];
+      int end = chunkStart(block + 1, blocks, holes);
+      for (int hole = chunkStart(block, blocks, holes); hole < end; hole++) {
+        for (int[] histogram : counts) {
+          int count = histogram[hole];
+          histogram[hole] = offset;
+          offset += count;
+        }
+      }
+    });
+  }
+
+  /**
+   * Sort every array of a batch in parallel. The arrays are split in groups of consecutive
+   * arrays, one per task, and every task sorts its arrays with the sorter of its thread.
+   *
+   * @param arrays int[][]: the arrays to sort
+   * @param threshold int: the minimum number of elements handled by a single task
+   */
+  static void sortAll(int[][] arrays, int threshold) {
+    long length = 0;
+    for (int[] array : arrays) {
+      length += array.length;
+    }
+    int chunks = Math.min(arrays.length,
+        chunksCount((int) Math.min(Integer.MAX_VALUE, length), threshold));
+    if (chunks <= 1) {
+      PigeonholeSort.sortAll(arrays);
+      return;
+    }
+    forEach(chunks, chunk -> {
+      PigeonholeSorter sorter = PigeonholeSorter.forCurrentThread();
+      int end = chunkStart(chunk + 1, chunks, arrays.length);
+      for (int array = chunkStart(chunk, chunks, arrays.length); array < end; array++) {
+        sorter.sort(arrays[array]);
+      }
+    });
+  }
+
+  /**
+   * Sort every segment of an array in parallel. The segments are split in groups of consecutive
+   * segments, one per task, and every task sorts its segments with the sorter of its thread.
+   *
+   * @param data int[]: the array containing the segments
+   * @param offsets int[]: the start of every segment followed by the end of the last one
+   * @param threshold int: the minimum number of elements handled by a single task
+   */
+  static void sortSegments(int[] data, int[] offsets, int threshold) {
+    int segments = Math.max(0, offsets.length - 1);
+    int length = segments > 0 ? offsets[segments] - offsets[0] : 0;
+    int chunks = Math.min(segments, chunksCount(length, threshold));
+    if (chunks <= 1) {
+      PigeonholeSort.sortSegments(data, offsets);
+      return;
+    }
+    forEach(chunks, chunk -> {
+      PigeonholeSorter sorter = PigeonholeSorter.forCurrentThread();
+      int end = chunkStart(chunk + 1, chunks, segments);
+      for (int segment = chunkStart(chunk, chunks, segments); segment < end; segment++) {
+        sorter.sort(data, offsets[segment], offsets[segment + 1]);
+      }
+    });
+  }
+
+  /**
+   * Sort given int array using fork/join pigeonhole sort.
+   *
+   * @param arrayToSort int[]: the array to sort
+   * @param threshold int: the minimum number of elements handled by a single task
+   */
+  static void sort(int[] arrayToSort, int threshold) {
+    int length = arrayToSort.length;
+    int chunks = chunksCount(length, threshold);
+    if (chunks < 2) {
+      PigeonholeSort.sort(arrayToSort);
+      return;
+    }
+    int[] mins = new int[chunks];
+    int[] maxs = new int[chunks];
+    forEach(chunks, chunk -> {
+      int end = chunkStart(chunk + 1, chunks, length);
+      int min = arrayToSort[chunkStart(chunk, chunks, length)];
+      int max = min;
+      for (int i = chunkStart(chunk, chunks, length); i < end; i++) {
+        int value = arrayToSort[i];
+        if (value < min) {
+          min = value;
+        } else if (value > max) {
+          max = value;
+        }
+      }
+      mins[chunk] = min;
+      maxs[chunk] = max;
+    });
+    int min = Arrays.stream(mins).min().getAsInt();
+    int max = Arrays.stream(maxs).max().getAsInt();
+    int holes = PigeonholeSort.holesCount(min, max);
+    int[][] counts = fillHistograms(histogramsCount(chunks, length, holes), holes, length,
+        (histogram, from, to) -> {
+          for (int i = from; i < to; i++) {
+            histogram[arrayToSort[i] - min]++;
+          }
+        });
+    int[] blockStarts = mergeHistograms(counts, chunks);
+    int[] totals = counts[0];
+    forEach(chunks, block -> {
+      int i = blockStarts[block];
+      int end = chunkStart(block + 1, chunks, holes);
+      for (int hole = chunkStart(block, chunks, holes); hole < end; hole++) {
+        int count = totals[hole];
+        if (count > 0) {
+          Arrays.fill(arrayToSort, i, i + count, min + hole);
+          i += count;
+        }
+      }
+    });
+  }
+
+  /**
+   * Sort given long array using fork/join pigeonhole sort.
+   *
+   * @param arrayToSort long[]: the array to sort
+   * @param threshold int: the minimum number of elements handled by a single task
+   */
+  static void sort(long[] arrayToSort, int threshold) {
+    int length = arrayToSort.length;
+    int chunks = chunksCount(length, threshold);
+    if (chunks < 2) {
+      PigeonholeSort.sort(arrayToSort);
+      return;
+    }
+    long[] mins = new long[chunks];
+    long[] maxs = new long[chunks];
+    forEach(chunks, chunk -> {
+      int end = chunkStart(chunk + 1, chunks, length);
+      long min = arrayToSort[chunkStart(chunk, chunks, length)];
+      long max = min;
+      for (int i = chunkStart(chunk, chunks, length); i < end; i++) {
+        long value = arrayToSort[i];
+        if (value < min) {
+          min = value;
+        } else if (value > max) {
+          max = value;
+        }
+      }
+      mins[chunk] = min;
+      maxs[chunk] = max;
+    });
+    long min = Arrays.stream(mins).min().getAsLong();
+    long max = Arrays.stream(maxs).max().getAsLong();
+    int holes = PigeonholeSort.holesCount(min, max);
+    int[][] counts = fillHistograms(histogramsCount(chunks, length, holes), holes, length,
+        (histogram, from, to) -> {
+          for (int i = from; i < to; i++) {
+            histogram[(int) (arrayToSort[i] - min)]++;
+          }
+        });
+    int[] blockStarts = mergeHistograms(counts, chunks);
+    int[] totals = counts[0];
+    forEach(chunks, block -> {
+      int i = blockStarts[block];
+      int end = chunkStart(block + 1, chunks, holes);
+      for (int hole = chunkStart(block, chunks, holes); hole < end; hole++) {
+        int count = totals[hole];
+        if (count > 0) {
+          Arrays.fill(arrayToSort, i, i + count, min + hole);
+          i += count;
+        }
+      }
+    });
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using fork/join pigeonhole sort. The
+   * sort is stable.
+   *
+   * @param arrayToSort Type[]: the array to sort
+   * @param key ToIntFunction: function giving the key of an element
+   * @param threshold int: the minimum number of elements handled by a single task
+   * @param <Type> Type of the array, inferred.
+   */
+  static <Type> void sort(Type[] arrayToSort, ToIntFunction<? super Type> key, int threshold) {
+    int length = arrayToSort.length;
+    int chunks = chunksCount(length, threshold);
+    if (chunks < 2) {
+      PigeonholeSort.sort(arrayToSort, key);
+      return;
+    }
+    int[] keys = new int[length];
+    int[] mins = new int[chunks];
+    int[] maxs = new int[chunks];
+    forEach(chunks, chunk -> {
+      int end = chunkStart(chunk + 1, chunks, length);
+      int min = Integer.MAX_VALUE;
+      int max = Integer.MIN_VALUE;
+      for (int i = chunkStart(chunk, chunks, length); i < end; i++) {
+        int value = key.applyAsInt(arrayToSort[i]);
+        keys[i] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      mins[chunk] = min;
+      maxs[chunk] = max;
+    });
+    int min = Arrays.stream(mins).min().getAsInt();
+    int max = Arrays.stream(maxs).max().getAsInt();
+    int holes = PigeonholeSort.holesCount(min, max);
+    @SuppressWarnings("unchecked")
+    Type[] tmpArray = (Type[]) Array
+        .newInstance(arrayToSort.getClass().getComponentType(), length);
+    int histograms = histogramsCount(chunks, length, holes);
+    int[][] counts = fillHistograms(histograms, holes, length, (histogram, from, to) -> {
+      System.arraycopy(arrayToSort, from, tmpArray, from, to - from);
+      for (int i = from; i < to; i++) {
+        histogram[keys[i] - min]++;
+      }
+    });
+    toOffsets(counts, chunks);
+    forEach(histograms, chunk -> {
+      int[] offsets = counts[chunk];
+      int end = chunkStart(chunk + 1, histograms, length);
+      for (int i = chunkStart(chunk, histograms, length); i < end; i++) {
+        arrayToSort[offsets[keys[i] - min]++] = tmpArray[i];
+      }
+    });
+  }
+}
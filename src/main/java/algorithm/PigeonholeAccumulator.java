@@ -0,0 +1,270 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Incremental pigeonhole sort for values that arrive over time.
+ * <p>
+ * Values are counted in pigeonholes as soon as they are added. The array of counters grows in
+ * both directions when a value falls outside of the covered range, so the values don't need to be
+ * known in advance. A sorted view of the values added so far costs O(range + n) at any moment,
+ * without sorting again the values already counted. This class is not thread safe.
+ */
+public class PigeonholeAccumulator {
+
+  /**
+   * Number of pigeonholes allocated for the first value.
+   */
+  private static final int INITIAL_HOLES = 64;
+
+  /**
+   * Counter of every pigeonhole. Null until the first value is added, all zero when the
+   * accumulator is empty.
+   */
+  private int[] counts;
+
+  /**
+   * Value of the first pigeonhole.
+   */
+  private int base;
+
+  /**
+   * Minimum value added. Valid only when size is positive.
+   */
+  private int min;
+
+  /**
+   * Maximum value added. Valid only when size is positive.
+   */
+  private int max;
+
+  /**
+   * Number of values added.
+   */
+  private long size;
+
+  /**
+   * Number of modifications, used by the iterators for detecting concurrent modifications.
+   */
+  private int modCount;
+
+  /**
+   * Add a value.
+   *
+   * @param value int: the value to add
+   * @throws IllegalArgumentException if the range of values added gets too wide
+   */
+  public void add(int value) {
+    ensureCapacity(value, value);
+    counts[value - base]++;
+    updateMinMax(value, value, 1);
+  }
+
+  /**
+   * Add all the values of an array. The counters grow at most once.
+   *
+   * @param values int[]: the values to add
+   * @throws IllegalArgumentException if the range of values added gets too wide
+   */
+  public void addAll(int[] values) {
+    if (values.length == 0) {
+      return;
+    }
+    int valuesMin = values[0];
+    int valuesMax = valuesMin;
+    for (int value : values) {
+      if (value < valuesMin) {
+        valuesMin = value;
+      } else if (value > valuesMax) {
+        valuesMax = value;
+      }
+    }
+    ensureCapacity(valuesMin, valuesMax);
+    for (int value : values) {
+      counts[value - base]++;
+    }
+    updateMinMax(valuesMin, valuesMax, values.length);
+  }
+
+  /**
+   * Update minimum, maximum and size after values have been counted.
+   *
+   * @param addedMin int: the minimum of the values added
+   * @param addedMax int: the maximum of the values added
+   * @param added int: the number of values added
+   */
+  private void updateMinMax(int addedMin, int addedMax, int added) {
+    if (size == 0) {
+      min = addedMin;
+      max = addedMax;
+    } else {
+      min = Math.min(min, addedMin);
+      max = Math.max(max, addedMax);
+    }
+    size += added;
+    modCount++;
+  }
+
+  /**
+   * Grow the array of counters so that it covers all the values between low and high. The
+   * capacity at least doubles, keeping the amortized cost of an addition constant.
+   *
+   * @param low int: the lowest value to cover
+   * @param high int: the highest value to cover
+   * @throws IllegalArgumentException if the range to cover is too wide
+   */
+  private void ensureCapacity(int low, int high) {
+    if (size == 0) {
+      //all the counters are zero, so the covered range can start anywhere
+      int holes = PigeonholeSort.holesCount(low, high);
+      if (counts == null || counts.length < holes) {
+        counts = new int[Math.max(holes, INITIAL_HOLES)];
+      }
+      base = (int) Math.min(low, (long) Integer.MAX_VALUE - counts.length + 1);
+      return;
+    }
+    long coveredHigh = (long) base + counts.length - 1;
+    if (low >= base && high <= coveredHigh) {
+      return;
+    }
+    long newLow = Math.min(base, low);
+    long newHigh = Math.max(coveredHigh, high);
+    long holes = Math.max(newHigh - newLow + 1, 2L * counts.length);
+    holes = Math.min(holes, PigeonholeSort.MAX_HOLES);
+    if (newHigh - newLow + 1 > holes) {
+      throw new IllegalArgumentException(
+          "Range of values [" + newLow + ", " + newHigh + "] is too wide for pigeonhole sort");
+    }
+    //the extra capacity goes on the side that has just grown, without leaving the int range
+    long newBase = low < base ? Math.max(Integer.MIN_VALUE, newHigh - holes + 1) : newLow;
+    newBase = Math.min(newBase, (long) Integer.MAX_VALUE - holes + 1);
+    int[] newCounts = new int[(int) holes];
+    System.arraycopy(counts, 0, newCounts, (int) (base - newBase), counts.length);
+    counts = newCounts;
+    base = (int) newBase;
+  }
+
+  /**
+   * Get the number of values added.
+   *
+   * @return long: the number of values added
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Get an iterator over the values added, in ascending order. The iterator fails if values are
+   * added while iterating.
+   *
+   * @return PrimitiveIterator.OfInt: an iterator over the sorted values
+   */
+  public PrimitiveIterator.OfInt sortedIterator() {
+    return new PrimitiveIterator.OfInt() {
+
+      private final int expectedModCount = modCount;
+      private long hole = size > 0 ? min - base : 0;
+      private int remainingInHole = size > 0 ? counts[(int) hole] : 0;
+      private long remaining = size;
+
+      @Override
+      public boolean hasNext() {
+        return remaining > 0;
+      }
+
+      @Override
+      public int nextInt() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (remaining == 0) {
+          throw new NoSuchElementException();
+        }
+        while (remainingInHole == 0) {
+          remainingInHole = counts[(int) ++hole];
+        }
+        remainingInHole--;
+        remaining--;
+        return (int) (base + hole);
+      }
+    };
+  }
+
+  /**
+   * Copy the values added, in ascending order, into the beginning of an array and remove them
+   * from this accumulator. The memory of the counters is kept for the next values.
+   *
+   * @param destination int[]: the array where the sorted values are written
+   * @return int: the number of values written
+   * @throws IllegalArgumentException if the array is shorter than the number of values
+   */
+  public int drainTo(int[] destination) {
+    if (destination.length < size) {
+      throw new IllegalArgumentException(
+          "Destination of length " + destination.length + " can't hold " + size + " values");
+    }
+    int written = fill(destination);
+    if (size > 0) {
+      //only the pigeonholes between minimum and maximum have been touched
+      Arrays.fill(counts, min - base, max - base + 1, 0);
+    }
+    size = 0;
+    modCount++;
+    return written;
+  }
+
+  /**
+   * Get the values added, in ascending order, without removing them.
+   *
+   * @return int[]: the sorted values
+   * @throws IllegalStateException if there are more values than the length of a java array
+   */
+  public int[] toArray() {
+    if (size > PigeonholeSort.MAX_HOLES) {
+      throw new IllegalStateException("Too many values for an array: " + size);
+    }
+    int[] values = new int[(int) size];
+    fill(values);
+    return values;
+  }
+
+  /**
+   * Write the values added, in ascending order, into the beginning of an array.
+   *
+   * @param destination int[]: the array to fill, long enough for all the values
+   * @return int: the number of values written
+   */
+  private int fill(int[] destination) {
+    int i = 0;
+    if (size > 0) {
+      for (int hole = min - base; hole <= max - base; hole++) {
+        int count = counts[hole];
+        if (count > 0) {
+          Arrays.fill(destination, i, i + count, base + hole);
+          i += count;
+        }
+      }
+    }
+    return i;
+  }
+}
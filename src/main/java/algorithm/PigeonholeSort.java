@@ -19,8 +19,11 @@
 
 package algorithm;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Abstract class containing sort method using pigeonhole algorithm.
@@ -32,72 +35,1395 @@ import java.util.List;
 public abstract class PigeonholeSort {
 
   /**
-   * Get maximum hashCode value of a given generic array
+   * Maximum number of pigeonholes that can be allocated. Some VMs reserve header words in an
+   * array, so this is slightly less than Integer.MAX_VALUE.
+   */
+  static final int MAX_HOLES = Integer.MAX_VALUE - 8;
+
+  /**
+   * Default minimum number of elements handled by a single task of the parallel sorts. Smaller
+   * arrays are sorted sequentially.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * Number of histograms filled in parallel by {@link #countValues(int[], int, int)}.
+   */
+  static final int SUB_HISTOGRAMS = 4;
+
+  /**
+   * Maximum number of pigeonholes counted with separate histograms. Above it the histograms
+   * would no longer fit in the processor caches together.
+   */
+  private static final int SUB_HISTOGRAMS_MAX_HOLES = 1 << 14;
+
+  /**
+   * Maximum number of ascending runs merged instead of counted. Above it the scan stops tracking
+   * the order of the array.
+   */
+  private static final int MAX_MERGE_RUNS = 64;
+
+  /**
+   * Kernels of the scan and count phases, using the Vector API when it's available.
+   */
+  private static final SortKernels KERNELS = SortKernels.load();
+
+  /**
+   * Extract the integer key of every element of a given generic array.
    *
-   * @param array Type[]: the array to calculate the maximum
+   * @param array Type[]: the array whose keys are extracted
+   * @param key ToIntFunction: function giving the key of an element
    * @param <Type> Type of the array, inferred.
-   * @return Integer: the maximum hashcode value found in the array
+   * @return int[]: the keys, in the same order of the elements in the array
    */
-  private static <Type> Integer getMax(Type[] array) {
-    int max = 0;
-    for (Type element : array) {
-      if (element.hashCode() > max) {
-        max = element.hashCode();
-      }
+  private static <Type> int[] getKeys(Type[] array, ToIntFunction<? super Type> key) {
+    int[] keys = new int[array.length];
+    for (int i = 0; i < array.length; i++) {
+      keys[i] = key.applyAsInt(array[i]);
     }
-    return max;
+    return keys;
+  }
+
+  /**
+   * Get minimum and maximum value of a given non empty int array with a single scan.
+   *
+   * @param array int[]: the array to calculate the minimum and maximum
+   * @return int[]: array of two elements, the minimum and the maximum value found in the array
+   */
+  private static int[] getMinMax(int[] array) {
+    return KERNELS.minMax(array, 1, array[0], array[0]);
   }
 
   /**
-   * Fill a temporary array at position corresponding to values taken from array to sort.
-   * Every position of the array has a list for handling multiple equal value.
+   * Get minimum and maximum value of a given non empty long array with a single scan.
    *
-   * @param tmpArray List<Type>[]: the array to fill
+   * @param array long[]: the array to calculate the minimum and maximum
+   * @return long[]: array of two elements, the minimum and the maximum value found in the array
+   */
+  private static long[] getMinMax(long[] array) {
+    return KERNELS.minMax(array, 1, array[0], array[0]);
+  }
+
+  /**
+   * Count how many keys fall in every pigeonhole. Position 0 of the counts array corresponds to
+   * the minimum key.
+   *
+   * @param counts int[]: the array of counters to fill, one for each pigeonhole
+   * @param keys int[]: the keys of the array to sort
+   * @param min int: the minimum key
+   */
+  private static void fillCounts(int[] counts, int[] keys, int min) {
+    for (int key : keys) {
+      counts[key - min]++;
+    }
+  }
+
+  /**
+   * Replace every counter with the sum of the counters before it, so that each pigeonhole holds
+   * the index of the array where its first element has to be written.
+   *
+   * @param counts int[]: the counters to transform in place
+   */
+  static void toOffsets(int[] counts) {
+    int offset = 0;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      counts[hole] = offset;
+      offset += count;
+    }
+  }
+
+  /**
+   * Move every element of the temporary array into the position given by the offset of its
+   * pigeonhole. Elements with equal keys keep their relative order.
+   *
+   * @param offsets int[]: the starting index of every pigeonhole, incremented while writing
+   * @param keys int[]: the keys of the elements of the temporary array
+   * @param min int: the minimum key
+   * @param tmpArray Type[]: copy of the array to sort
    * @param arrayToSort Type[]: the array to sort
    * @param <Type> Type of the array, inferred.
    */
-  private static <Type> void fillTmpArray(List<?>[] tmpArray, Type[] arrayToSort) {
-    for (Type element : arrayToSort) {
-      Integer hashCode = element.hashCode();
-      if (tmpArray[hashCode] == null) {
-        tmpArray[hashCode] = new ArrayList<Type>();
-      }
-      List<Type> elementList = (List<Type>) tmpArray[hashCode];
-      elementList.add(element);
+  private static <Type> void fillOrderedArray(int[] offsets, int[] keys, int min,
+      Type[] tmpArray, Type[] arrayToSort) {
+    for (int i = 0; i < keys.length; i++) {
+      arrayToSort[offsets[keys[i] - min]++] = tmpArray[i];
+    }
+  }
+
+  /**
+   * Sort given array using pigeonhole sort algorithm, taking the hashcode of an element as its
+   * key.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param <Type> Type of the array, inferred.
+   * @see #sort(Object[], ToIntFunction)
+   * @see <a href="https://en.wikipedia.org/wiki/Pigeonhole_sort">Wikipedia page for pigeonhole
+   * sort</a>
+   */
+  public static <Type> void sort(Type[] arrayToSort) {
+    sort(arrayToSort, Object::hashCode);
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using pigeonhole sort algorithm.
+   * Pigeonholes cover only the keys between the minimum and the maximum, so negative keys are
+   * supported. The sort is stable: elements with equal keys keep their relative order.
+   * Only the array of counters, the keys and a single temporary copy of the array are allocated.
+   * <p>
+   * Arrays whose keys are already sorted are left untouched, arrays with strictly descending keys
+   * are reversed in place and arrays made of a few ascending runs of keys are merged when that is
+   * cheaper than counting.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element. It's called once per
+   * element.
+   * @param <Type> Type of the array, inferred.
+   * @throws IllegalArgumentException if the range of keys is too wide
+   */
+  public static <Type> void sort(Type[] arrayToSort, ToIntFunction<? super Type> key) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    int[] keys = getKeys(arrayToSort, key);
+    int[] scan = scan(keys);
+    if (sortPresorted(arrayToSort, keys, scan) == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, keys, scan[0], scan[1]);
+    }
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using pigeonhole sort algorithm,
+   * recording the metrics of the sort and committing a flight recorder event. The sort is
+   * stable and takes the same paths for presorted keys as
+   * {@link #sort(Object[], ToIntFunction)}.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element. It's called once per
+   * element.
+   * @param metrics SortMetrics: the metrics to fill, replacing their previous values
+   * @param <Type> Type of the array, inferred.
+   * @throws IllegalArgumentException if the range of keys is too wide
+   * @see #sort(Object[], ToIntFunction)
+   */
+  public static <Type> void sort(Type[] arrayToSort, ToIntFunction<? super Type> key,
+      SortMetrics metrics) {
+    metrics.start(SortStrategy.PIGEONHOLE, arrayToSort.length);
+    if (arrayToSort.length < 2) {
+      metrics.endWrite(0);
+      return;
     }
+    int[] keys = getKeys(arrayToSort, key);
+    int[] scan = scan(keys);
+    int min = scan[0];
+    metrics.endScan(min, scan[1], (long) keys.length * Integer.BYTES);
+    SortStrategy strategy = sortPresorted(arrayToSort, keys, scan);
+    metrics.setStrategy(strategy);
+    if (strategy != SortStrategy.PIGEONHOLE) {
+      //the merge buffers of the elements and of the keys
+      metrics.endWrite(strategy == SortStrategy.MERGE ? 2L * keys.length * Integer.BYTES : 0);
+      return;
+    }
+    int[] counts = new int[holesCount(min, scan[1])];
+    fillCounts(counts, keys, min);
+    metrics.endCount(counts, (long) counts.length * Integer.BYTES);
+    toOffsets(counts);
+    Type[] tmpArray = Arrays.copyOf(arrayToSort, arrayToSort.length);
+    fillOrderedArray(counts, keys, min, tmpArray, arrayToSort);
+    //references are counted as compressed
+    metrics.endWrite((long) tmpArray.length * Integer.BYTES);
+  }
+
+  /**
+   * Sort given array by the already extracted keys of its elements.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param keys int[]: the keys of the elements, in the same order of the array
+   * @param min int: the minimum key
+   * @param max int: the maximum key
+   * @param <Type> Type of the array, inferred.
+   */
+  private static <Type> void sort(Type[] arrayToSort, int[] keys, int min, int max) {
+    int[] counts = new int[holesCount(min, max)];
+    fillCounts(counts, keys, min);
+    toOffsets(counts);
+    Type[] tmpArray = Arrays.copyOf(arrayToSort, arrayToSort.length);
+    fillOrderedArray(counts, keys, min, tmpArray, arrayToSort);
   }
 
   /**
-   * Iterate through an array of list and concat them into the array to sort
+   * Sort given array with the path for presorted keys chosen from their scan, if any. Only
+   * strictly descending keys are reversed, so that the sort stays stable.
    *
-   * @param tmpArray List<Type>[]: the array to iterate
-   * @param arrayToSort Object[]: the array to sort
+   * @param arrayToSort Type[]: the array to sort.
+   * @param keys int[]: the keys of the elements, in the same order of the array
+   * @param scan int[]: the result of {@link #scan(int[])} on the keys
    * @param <Type> Type of the array, inferred.
+   * @return SortStrategy: the strategy used, {@link SortStrategy#PIGEONHOLE} if the array still
+   * has to be sorted
+   */
+  private static <Type> SortStrategy sortPresorted(Type[] arrayToSort, int[] keys, int[] scan) {
+    SortStrategy strategy = choosePresorted(keys.length, scan[2], scan[2] == keys.length - 1,
+        scan[0], scan[1]);
+    if (strategy == SortStrategy.REVERSE) {
+      RunMergeSort.reverse(arrayToSort);
+    } else if (strategy == SortStrategy.MERGE) {
+      RunMergeSort.sort(arrayToSort, keys, scan[2] + 1);
+    }
+    return strategy;
+  }
+
+  /**
+   * Get the number of pigeonholes needed for covering every value between min and max.
+   *
+   * @param min long: the minimum value of the array to sort
+   * @param max long: the maximum value of the array to sort
+   * @return int: the number of pigeonholes, equal to max - min + 1
+   * @throws IllegalArgumentException if the range is too wide to be stored in a java array
+   */
+  static int holesCount(long min, long max) {
+    long range = max - min;
+    //the subtraction overflows to a negative number when the range is wider than a long
+    if (range < 0 || range >= MAX_HOLES) {
+      throw new IllegalArgumentException(
+          "Range of values [" + min + ", " + max + "] is too wide for pigeonhole sort");
+    }
+    return (int) range + 1;
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm. A single array of counters, one for
+   * each value between the minimum and the maximum, is allocated and the array is rewritten in
+   * place.
+   * <p>
+   * The scan for minimum and maximum also detects presorted input: sorted arrays are left
+   * untouched after that single read, descending arrays are reversed in place and arrays made of
+   * a few ascending runs are merged when that is cheaper than counting.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   */
+  public static void sort(int[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    int[] scan = scan(arrayToSort);
+    if (sortPresorted(arrayToSort, scan) == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1]);
+    }
+  }
+
+  /**
+   * Sort given int array with the path for presorted input chosen from its scan, if any.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param scan int[]: the result of {@link #scan(int[])} on the array
+   * @return SortStrategy: the strategy used, {@link SortStrategy#PIGEONHOLE} if the array still
+   * has to be sorted
+   */
+  private static SortStrategy sortPresorted(int[] arrayToSort, int[] scan) {
+    SortStrategy strategy = choosePresorted(arrayToSort.length, scan[2], scan[3] == 0, scan[0],
+        scan[1]);
+    if (strategy == SortStrategy.REVERSE) {
+      RunMergeSort.reverse(arrayToSort);
+    } else if (strategy == SortStrategy.MERGE) {
+      RunMergeSort.sort(arrayToSort, scan[2] + 1);
+    }
+    return strategy;
+  }
+
+  /**
+   * Get minimum, maximum and order of a given non empty int array with a single scan. The order
+   * is tracked only while the array can still be sorted, descending or made of less than
+   * {@link #MAX_MERGE_RUNS} ascending runs, then the scan goes on looking only for minimum and
+   * maximum.
+   *
+   * @param array int[]: the array to scan
+   * @return int[]: array of four elements, the minimum, the maximum, the number of positions
+   * where a value is lower than the previous one and the number where it's higher. The counts are
+   * partial when there are at least {@link #MAX_MERGE_RUNS} descents and an ascent.
+   */
+  private static int[] scan(int[] array) {
+    int min = array[0];
+    int max = min;
+    int descents = 0;
+    int ascents = 0;
+    int i = 1;
+    //the signs of the differences give the order without branches, which random data mispredicts
+    for (; i < array.length && (descents < MAX_MERGE_RUNS || ascents == 0); i++) {
+      int value = array[i];
+      int previous = array[i - 1];
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      descents += (int) (((long) value - previous) >>> 63);
+      ascents += (int) (((long) previous - value) >>> 63);
+    }
+    int[] minMax = KERNELS.minMax(array, i, min, max);
+    return new int[]{minMax[0], minMax[1], descents, ascents};
+  }
+
+  /**
+   * Get minimum, maximum and order of a given non empty long array with a single scan. The order
+   * is tracked only while the array can still be sorted, descending or made of less than
+   * {@link #MAX_MERGE_RUNS} ascending runs.
+   *
+   * @param array long[]: the array to scan
+   * @return long[]: array of four elements, the minimum, the maximum, the number of positions
+   * where a value is lower than the previous one and the number where it's higher. The counts are
+   * partial when there are at least {@link #MAX_MERGE_RUNS} descents and an ascent.
+   */
+  private static long[] scan(long[] array) {
+    long min = array[0];
+    long max = min;
+    int descents = 0;
+    int ascents = 0;
+    int i = 1;
+    for (; i < array.length && (descents < MAX_MERGE_RUNS || ascents == 0); i++) {
+      long value = array[i];
+      long previous = array[i - 1];
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      descents += lessThan(value, previous);
+      ascents += lessThan(previous, value);
+    }
+    long[] minMax = KERNELS.minMax(array, i, min, max);
+    return new long[]{minMax[0], minMax[1], descents, ascents};
+  }
+
+  /**
+   * Compare two longs without branches.
+   *
+   * @param a long: the first value
+   * @param b long: the second value
+   * @return int: 1 if a is lower than b, 0 otherwise
+   */
+  private static int lessThan(long a, long b) {
+    long difference = a - b;
+    //correct the sign of the difference when the subtraction overflows
+    return (int) ((difference ^ ((a ^ b) & (difference ^ a))) >>> 63);
+  }
+
+  /**
+   * Choose how to sort an array from the order found by its scan.
+   *
+   * @param length int: the length of the array
+   * @param descents long: the number of positions where a key is lower than the previous one
+   * @param reversible boolean: true if reversing the array sorts it
+   * @param min long: the minimum key
+   * @param max long: the maximum key
+   * @return SortStrategy: {@link SortStrategy#SORTED}, {@link SortStrategy#REVERSE} or
+   * {@link SortStrategy#MERGE} for presorted arrays, {@link SortStrategy#PIGEONHOLE} otherwise
+   */
+  private static SortStrategy choosePresorted(int length, long descents, boolean reversible,
+      long min, long max) {
+    if (descents == 0) {
+      //already sorted, including arrays of equal values
+      return SortStrategy.SORTED;
+    }
+    if (reversible) {
+      return SortStrategy.REVERSE;
+    }
+    return isMergeCheaper(length, descents + 1, min, max) ? SortStrategy.MERGE
+        : SortStrategy.PIGEONHOLE;
+  }
+
+  /**
+   * Check if merging the ascending runs of an array costs less than counting its values in
+   * pigeonholes. A merge pass reads and writes every element once, pigeonhole sort does it twice
+   * and walks every pigeonhole.
+   *
+   * @param length int: the length of the array
+   * @param runs long: the number of ascending runs, at least 2, or more than
+   * {@link #MAX_MERGE_RUNS} if the scan stopped counting them
+   * @param min long: the minimum value of the array
+   * @param max long: the maximum value of the array
+   * @return boolean: true if the runs should be merged
+   */
+  private static boolean isMergeCheaper(int length, long runs, long min, long max) {
+    if (runs > MAX_MERGE_RUNS) {
+      return false;
+    }
+    //the range can overflow only when wider than any array, where merging always wins
+    long holes = max - min + 1;
+    return holes <= 0 || (long) RunMergeSort.passes(runs) * length <= 2L * length + holes;
+  }
+
+  /**
+   * Check if {@link #countValues(int[], int, int)} counts in separate histograms.
+   *
+   * @param length int: the number of values
+   * @param holes int: the number of pigeonholes
+   * @return boolean: true if the range is small and most pigeonholes receive several values
+   */
+  private static boolean useSubHistograms(int length, int holes) {
+    return holes <= SUB_HISTOGRAMS_MAX_HOLES && length >= SUB_HISTOGRAMS * holes;
+  }
+
+  /**
+   * Get the number of bytes allocated by {@link #countValues(int[], int, int)}.
+   *
+   * @param length int: the number of values
+   * @param holes int: the number of pigeonholes
+   * @return long: the bytes of the counters, including the separate histograms
+   */
+  private static long countValuesBytes(int length, int holes) {
+    int arrays = useSubHistograms(length, holes) ? SUB_HISTOGRAMS + 1 : 1;
+    return (long) arrays * holes * Integer.BYTES;
+  }
+
+  /**
+   * Count how many values of an int array fall in every pigeonhole.
+   * <p>
+   * On small ranges with many duplicates consecutive increments hit the same counter, and each
+   * one has to wait for the store of the previous one. In that case the values are counted
+   * round robin in {@link #SUB_HISTOGRAMS} separate histograms, so that consecutive increments are
+   * independent, and the histograms are summed at the end.
+   *
+   * @param array int[]: the values to count
+   * @param min int: the value of the first pigeonhole
+   * @param holes int: the number of pigeonholes, covering every value of the array
+   * @return int[]: the counter of every pigeonhole
+   */
+  private static int[] countValues(int[] array, int min, int holes) {
+    if (!useSubHistograms(array.length, holes)) {
+      int[] counts = new int[holes];
+      for (int value : array) {
+        counts[value - min]++;
+      }
+      return counts;
+    }
+    int[] counts = new int[SUB_HISTOGRAMS * holes];
+    KERNELS.countInterleaved(array, min, holes, counts);
+    for (int hole = 0; hole < holes; hole++) {
+      counts[hole] += counts[hole + holes] + counts[hole + 2 * holes] + counts[hole + 3 * holes];
+    }
+    return Arrays.copyOf(counts, holes);
+  }
+
+  /**
+   * Sort given int array whose minimum and maximum are already known.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param min int: the minimum value of the array
+   * @param max int: the maximum value of the array
+   */
+  private static void sort(int[] arrayToSort, int min, int max) {
+    int[] counts = countValues(arrayToSort, min, holesCount(min, max));
+    writeCounts(arrayToSort, counts, min);
+  }
+
+  /**
+   * Sort given int array whose minimum and maximum are already known, recording the count and
+   * write phases.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param min int: the minimum value of the array
+   * @param max int: the maximum value of the array
+   * @param metrics SortMetrics: the metrics of the sort, with the scan already recorded
+   */
+  private static void sort(int[] arrayToSort, int min, int max, SortMetrics metrics) {
+    int holes = holesCount(min, max);
+    int[] counts = countValues(arrayToSort, min, holes);
+    metrics.endCount(counts, countValuesBytes(arrayToSort.length, holes));
+    writeCounts(arrayToSort, counts, min);
+    metrics.endWrite(0);
+  }
+
+  /**
+   * Write every value of the pigeonholes as many times as its counter, from the beginning of an
+   * array.
+   *
+   * @param array int[]: the array to write
+   * @param counts int[]: the counter of every pigeonhole
+   * @param min int: the value of the first pigeonhole
+   */
+  private static void writeCounts(int[] array, int[] counts, int min) {
+    int i = 0;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        Arrays.fill(array, i, i + count, min + hole);
+        i += count;
+      }
+    }
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm, recording the metrics of the sort and
+   * committing a flight recorder event. Presorted arrays take the same paths as
+   * {@link #sort(int[])}.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param metrics SortMetrics: the metrics to fill, replacing their previous values
+   * @throws IllegalArgumentException if the range of values is too wide
+   * @see #sort(int[])
+   */
+  public static void sort(int[] arrayToSort, SortMetrics metrics) {
+    metrics.start(SortStrategy.PIGEONHOLE, arrayToSort.length);
+    if (arrayToSort.length < 2) {
+      metrics.endWrite(0);
+      return;
+    }
+    int[] scan = scan(arrayToSort);
+    metrics.endScan(scan[0], scan[1], 0);
+    SortStrategy strategy = sortPresorted(arrayToSort, scan);
+    metrics.setStrategy(strategy);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1], metrics);
+    } else {
+      endPresortedWrite(metrics, strategy, arrayToSort.length);
+    }
+  }
+
+  /**
+   * End the write phase of a sort that took a path for presorted input.
+   *
+   * @param metrics SortMetrics: the metrics of the sort
+   * @param strategy SortStrategy: the strategy used
+   * @param length int: the length of the int array sorted
+   */
+  private static void endPresortedWrite(SortMetrics metrics, SortStrategy strategy, int length) {
+    //only the merge allocates, a buffer as long as the array
+    metrics.endWrite(strategy == SortStrategy.MERGE ? (long) length * Integer.BYTES : 0);
+  }
+
+  /**
+   * Sort given long array using pigeonhole sort algorithm. A single array of counters, one for
+   * each value between the minimum and the maximum, is allocated and the array is rewritten in
+   * place.
+   * <p>
+   * The scan for minimum and maximum also detects presorted input: sorted arrays are left
+   * untouched after that single read, descending arrays are reversed in place and arrays made of
+   * a few ascending runs are merged when that is cheaper than counting.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   */
+  public static void sort(long[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    long[] scan = scan(arrayToSort);
+    if (sortPresorted(arrayToSort, scan) == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1]);
+    }
+  }
+
+  /**
+   * Sort given long array with the path for presorted input chosen from its scan, if any.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @param scan long[]: the result of {@link #scan(long[])} on the array
+   * @return SortStrategy: the strategy used, {@link SortStrategy#PIGEONHOLE} if the array still
+   * has to be sorted
    */
-  private static <Type> void fillOrderedArray(Object[] tmpArray, Object[] arrayToSort) {
+  private static SortStrategy sortPresorted(long[] arrayToSort, long[] scan) {
+    SortStrategy strategy = choosePresorted(arrayToSort.length, scan[2], scan[3] == 0, scan[0],
+        scan[1]);
+    if (strategy == SortStrategy.REVERSE) {
+      RunMergeSort.reverse(arrayToSort);
+    } else if (strategy == SortStrategy.MERGE) {
+      RunMergeSort.sort(arrayToSort, (int) scan[2] + 1);
+    }
+    return strategy;
+  }
+
+  /**
+   * Sort given long array whose minimum and maximum are already known.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @param min long: the minimum value of the array
+   * @param max long: the maximum value of the array
+   */
+  private static void sort(long[] arrayToSort, long min, long max) {
+    int[] counts = new int[holesCount(min, max)];
+    for (long value : arrayToSort) {
+      counts[(int) (value - min)]++;
+    }
+    int i = 0;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        Arrays.fill(arrayToSort, i, i + count, min + hole);
+        i += count;
+      }
+    }
+  }
+
+  /**
+   * Sort given short array using pigeonhole sort algorithm. A single array of counters, one for
+   * each value between the minimum and the maximum, is allocated and the array is rewritten in
+   * place.
+   *
+   * @param arrayToSort short[]: the array to sort.
+   */
+  public static void sort(short[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    short min = arrayToSort[0];
+    short max = min;
+    for (short value : arrayToSort) {
+      if (value < min) {
+        min = value;
+      } else if (value > max) {
+        max = value;
+      }
+    }
+    int[] counts = new int[holesCount(min, max)];
+    for (short value : arrayToSort) {
+      counts[value - min]++;
+    }
     int i = 0;
-    for (Object tmpElement : tmpArray) {
-      if (tmpElement != null) {
-        List<Type> element = (List<Type>) tmpElement;
-        int size = element.size();
-        System.arraycopy(element.toArray(), 0, arrayToSort, i, size);
-        i += size;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        Arrays.fill(arrayToSort, i, i + count, (short) (min + hole));
+        i += count;
       }
     }
   }
 
   /**
-   * Sort given array using pigeonhole sort algorithm.
+   * Sort given char array using pigeonhole sort algorithm. A single array of counters, one for
+   * each value between the minimum and the maximum, is allocated and the array is rewritten in
+   * place.
+   *
+   * @param arrayToSort char[]: the array to sort.
+   */
+  public static void sort(char[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    char min = arrayToSort[0];
+    char max = min;
+    for (char value : arrayToSort) {
+      if (value < min) {
+        min = value;
+      } else if (value > max) {
+        max = value;
+      }
+    }
+    int[] counts = new int[holesCount(min, max)];
+    for (char value : arrayToSort) {
+      counts[value - min]++;
+    }
+    int i = 0;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        Arrays.fill(arrayToSort, i, i + count, (char) (min + hole));
+        i += count;
+      }
+    }
+  }
+
+  /**
+   * Sort given int array using a fork/join pigeonhole sort with the default sequential
+   * threshold.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @see #parallelSort(int[], int)
+   */
+  public static void parallelSort(int[] arrayToSort) {
+    parallelSort(arrayToSort, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sort given int array using a fork/join pigeonhole sort. Minimum and maximum, counting and
+   * write back are all split between the threads of the common pool, or of the pool of the
+   * caller when called from a fork/join task.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param sequentialThreshold int: minimum number of elements handled by a single task. Arrays
+   * shorter than twice this value are sorted sequentially.
+   * @throws IllegalArgumentException if the range of values is too wide or the threshold is not
+   * positive
+   */
+  public static void parallelSort(int[] arrayToSort, int sequentialThreshold) {
+    ParallelPigeonholeSort.sort(arrayToSort, sequentialThreshold);
+  }
+
+  /**
+   * Sort given long array using a fork/join pigeonhole sort with the default sequential
+   * threshold.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @see #parallelSort(long[], int)
+   */
+  public static void parallelSort(long[] arrayToSort) {
+    parallelSort(arrayToSort, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sort given long array using a fork/join pigeonhole sort.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @param sequentialThreshold int: minimum number of elements handled by a single task. Arrays
+   * shorter than twice this value are sorted sequentially.
+   * @throws IllegalArgumentException if the range of values is too wide or the threshold is not
+   * positive
+   */
+  public static void parallelSort(long[] arrayToSort, int sequentialThreshold) {
+    ParallelPigeonholeSort.sort(arrayToSort, sequentialThreshold);
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using a stable fork/join pigeonhole sort
+   * with the default sequential threshold.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element.
+   * @param <Type> Type of the array, inferred.
+   * @see #parallelSort(Object[], ToIntFunction, int)
+   */
+  public static <Type> void parallelSort(Type[] arrayToSort, ToIntFunction<? super Type> key) {
+    parallelSort(arrayToSort, key, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using a stable fork/join pigeonhole
+   * sort. Every thread counts its own chunk of the array, the counts are merged with a parallel
+   * prefix sum and every thread scatters its own chunk.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element. It's called once per
+   * element, possibly from different threads.
+   * @param sequentialThreshold int: minimum number of elements handled by a single task. Arrays
+   * shorter than twice this value are sorted sequentially.
+   * @param <Type> Type of the array, inferred.
+   * @throws IllegalArgumentException if the range of keys is too wide or the threshold is not
+   * positive
+   */
+  public static <Type> void parallelSort(Type[] arrayToSort, ToIntFunction<? super Type> key,
+      int sequentialThreshold) {
+    ParallelPigeonholeSort.sort(arrayToSort, key, sequentialThreshold);
+  }
+
+  /**
+   * Sort given int array with the strategy that {@link SortPlanner} estimates to be the cheapest
+   * for its length and range of values. Presorted arrays take the same paths as
+   * {@link #sort(int[])}.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @return SortStrategy: the strategy used for sorting the array
+   */
+  public static SortStrategy sortAdaptive(int[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return SortStrategy.PIGEONHOLE;
+    }
+    int[] scan = scan(arrayToSort);
+    SortStrategy strategy = sortPresorted(arrayToSort, scan);
+    if (strategy != SortStrategy.PIGEONHOLE) {
+      return strategy;
+    }
+    strategy = SortPlanner.choose(arrayToSort.length, scan[0], scan[1]);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1]);
+    } else if (strategy == SortStrategy.RADIX) {
+      RadixSort.sort(arrayToSort);
+    } else {
+      Arrays.sort(arrayToSort);
+    }
+    return strategy;
+  }
+
+  /**
+   * Sort given int array with the strategy that {@link SortPlanner} estimates to be the cheapest,
+   * recording the metrics of the sort and committing a flight recorder event.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param metrics SortMetrics: the metrics to fill, replacing their previous values
+   * @return SortStrategy: the strategy used for sorting the array
+   * @see #sortAdaptive(int[])
+   */
+  public static SortStrategy sortAdaptive(int[] arrayToSort, SortMetrics metrics) {
+    metrics.start(SortStrategy.PIGEONHOLE, arrayToSort.length);
+    if (arrayToSort.length < 2) {
+      metrics.endWrite(0);
+      return SortStrategy.PIGEONHOLE;
+    }
+    int[] scan = scan(arrayToSort);
+    metrics.endScan(scan[0], scan[1], 0);
+    SortStrategy strategy = sortPresorted(arrayToSort, scan);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      strategy = SortPlanner.choose(arrayToSort.length, scan[0], scan[1]);
+    }
+    metrics.setStrategy(strategy);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1], metrics);
+    } else if (strategy == SortStrategy.RADIX) {
+      RadixSort.sort(arrayToSort);
+      //a destination array and at most one histogram per digit
+      int histograms = Integer.SIZE / RadixSort.DIGIT_BITS;
+      metrics.endWrite(((long) arrayToSort.length + histograms * RadixSort.HOLES)
+          * Integer.BYTES);
+    } else if (strategy == SortStrategy.COMPARISON) {
+      Arrays.sort(arrayToSort);
+      metrics.endWrite(0);
+    } else {
+      endPresortedWrite(metrics, strategy, arrayToSort.length);
+    }
+    return strategy;
+  }
+
+  /**
+   * Sort given long array with the strategy that {@link SortPlanner} estimates to be the cheapest
+   * for its length and range of values. Presorted arrays take the same paths as
+   * {@link #sort(long[])}.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @return SortStrategy: the strategy used for sorting the array
+   */
+  public static SortStrategy sortAdaptive(long[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return SortStrategy.PIGEONHOLE;
+    }
+    long[] scan = scan(arrayToSort);
+    SortStrategy strategy = sortPresorted(arrayToSort, scan);
+    if (strategy != SortStrategy.PIGEONHOLE) {
+      return strategy;
+    }
+    strategy = SortPlanner.choose(arrayToSort.length, scan[0], scan[1]);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, scan[0], scan[1]);
+    } else if (strategy == SortStrategy.RADIX) {
+      RadixSort.sort(arrayToSort);
+    } else {
+      Arrays.sort(arrayToSort);
+    }
+    return strategy;
+  }
+
+  /**
+   * Stable sort of given array by the integer key of its elements, with the strategy that
+   * {@link SortPlanner} estimates to be the cheapest for its length and range of keys. Presorted
+   * keys take the same paths as {@link #sort(Object[], ToIntFunction)}.
    *
    * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element.
    * @param <Type> Type of the array, inferred.
-   * @see <a href="https://en.wikipedia.org/wiki/Pigeonhole_sort">Wikipedia page for pigeonhole
-   * sort</a>
+   * @return SortStrategy: the strategy used for sorting the array
    */
-  public static <Type> void sort(Type[] arrayToSort) {
-    int max = PigeonholeSort.getMax(arrayToSort);
-    ArrayList<?>[] tmpArray = new ArrayList<?>[max + 1];
-    PigeonholeSort.fillTmpArray(tmpArray, arrayToSort);
-    PigeonholeSort.fillOrderedArray(tmpArray, arrayToSort);
+  public static <Type> SortStrategy sortAdaptive(Type[] arrayToSort,
+      ToIntFunction<? super Type> key) {
+    if (arrayToSort.length < 2) {
+      return SortStrategy.PIGEONHOLE;
+    }
+    int[] keys = getKeys(arrayToSort, key);
+    int[] scan = scan(keys);
+    SortStrategy strategy = sortPresorted(arrayToSort, keys, scan);
+    if (strategy != SortStrategy.PIGEONHOLE) {
+      return strategy;
+    }
+    strategy = SortPlanner.choose(arrayToSort.length, scan[0], scan[1]);
+    if (strategy == SortStrategy.PIGEONHOLE) {
+      sort(arrayToSort, keys, scan[0], scan[1]);
+    } else if (strategy == SortStrategy.RADIX) {
+      RadixSort.sort(arrayToSort, keys);
+    } else {
+      Arrays.sort(arrayToSort, Comparator.comparingInt(key));
+    }
+    return strategy;
+  }
+
+  /**
+   * Get the permutation that stably sorts given keys, leaving the keys unchanged.
+   *
+   * @param keys int[]: the keys to sort
+   * @return int[]: the index in keys of the element that goes in every position of the sorted
+   * order
+   * @throws IllegalArgumentException if the range of keys is too wide
+   * @see #argsort(int[], int[])
+   */
+  public static int[] argsort(int[] keys) {
+    int[] permutation = new int[keys.length];
+    argsort(keys, permutation);
+    return permutation;
+  }
+
+  /**
+   * Write the permutation that stably sorts given keys into an array supplied by the caller,
+   * leaving the keys unchanged. Keys are counted in pigeonholes, the counters are turned into
+   * the starting position of every pigeonhole and every index is scattered to the position of its
+   * key, so that equal keys keep their relative order.
+   *
+   * @param keys int[]: the keys to sort
+   * @param permutation int[]: the array that receives, in every position of the sorted order, the
+   * index in keys of the element that goes there
+   * @throws IllegalArgumentException if the arrays have different lengths or the range of keys
+   * is too wide
+   * @see #permute(int[], int[][], long[][], double[][])
+   */
+  public static void argsort(int[] keys, int[] permutation) {
+    if (permutation.length != keys.length) {
+      throw new IllegalArgumentException("Permutation of length " + permutation.length
+          + " for " + keys.length + " keys");
+    }
+    if (keys.length == 0) {
+      return;
+    }
+    int[] minMax = getMinMax(keys);
+    int min = minMax[0];
+    int[] offsets = countValues(keys, min, holesCount(min, minMax[1]));
+    toOffsets(offsets);
+    for (int i = 0; i < keys.length; i++) {
+      permutation[offsets[keys[i] - min]++] = i;
+    }
+  }
+
+  /**
+   * Reorder columns of the same length in place following a permutation, as returned by
+   * {@link #argsort(int[])}, so that position i of every column receives the element at
+   * position permutation[i]. The permutation is applied following its cycles, moving the element
+   * of every column at once, so the only extra memory is one bit per position.
+   *
+   * @param permutation int[]: the index of the element that goes in every position
+   * @param intColumns int[][]: the int columns to reorder, possibly none
+   * @param longColumns long[][]: the long columns to reorder, possibly none
+   * @param doubleColumns double[][]: the double columns to reorder, possibly none
+   * @throws IllegalArgumentException if a column has a length different from the permutation or
+   * the permutation doesn't contain every index exactly once, leaving the columns unchanged
+   */
+  public static void permute(int[] permutation, int[][] intColumns, long[][] longColumns,
+      double[][] doubleColumns) {
+    int length = permutation.length;
+    for (int[] column : intColumns) {
+      checkColumnLength(column.length, length);
+    }
+    for (long[] column : longColumns) {
+      checkColumnLength(column.length, length);
+    }
+    for (double[] column : doubleColumns) {
+      checkColumnLength(column.length, length);
+    }
+    BitSet done = new BitSet(length);
+    for (int source : permutation) {
+      if (source < 0 || source >= length || done.get(source)) {
+        throw new IllegalArgumentException("Not a permutation, index " + source + " for length "
+            + length);
+      }
+      done.set(source);
+    }
+    done.clear();
+    int[] intHeld = new int[intColumns.length];
+    long[] longHeld = new long[longColumns.length];
+    double[] doubleHeld = new double[doubleColumns.length];
+    for (int start = done.nextClearBit(0); start < length; start = done.nextClearBit(start + 1)) {
+      //hold the elements of the start of the cycle, then shift every element of the cycle
+      for (int column = 0; column < intColumns.length; column++) {
+        intHeld[column] = intColumns[column][start];
+      }
+      for (int column = 0; column < longColumns.length; column++) {
+        longHeld[column] = longColumns[column][start];
+      }
+      for (int column = 0; column < doubleColumns.length; column++) {
+        doubleHeld[column] = doubleColumns[column][start];
+      }
+      int target = start;
+      for (int source = permutation[target]; source != start; source = permutation[target]) {
+        for (int column = 0; column < intColumns.length; column++) {
+          intColumns[column][target] = intColumns[column][source];
+        }
+        for (int column = 0; column < longColumns.length; column++) {
+          longColumns[column][target] = longColumns[column][source];
+        }
+        for (int column = 0; column < doubleColumns.length; column++) {
+          doubleColumns[column][target] = doubleColumns[column][source];
+        }
+        done.set(target);
+        target = source;
+      }
+      for (int column = 0; column < intColumns.length; column++) {
+        intColumns[column][target] = intHeld[column];
+      }
+      for (int column = 0; column < longColumns.length; column++) {
+        longColumns[column][target] = longHeld[column];
+      }
+      for (int column = 0; column < doubleColumns.length; column++) {
+        doubleColumns[column][target] = doubleHeld[column];
+      }
+      done.set(target);
+    }
+  }
+
+  /**
+   * Check that a column can be reordered by a permutation.
+   *
+   * @param columnLength int: the length of the column
+   * @param length int: the length of the permutation
+   * @throws IllegalArgumentException if the lengths are different
+   */
+  private static void checkColumnLength(int columnLength, int length) {
+    if (columnLength != length) {
+      throw new IllegalArgumentException(
+          "Column of length " + columnLength + " for a permutation of length " + length);
+    }
+  }
+
+  /**
+   * Get the k smallest values of given int array in ascending order, without sorting it. The
+   * pigeonholes are walked from the minimum and the walk stops as soon as k values are written.
+   *
+   * @param array int[]: the values, left unchanged
+   * @param k int: the number of values to get
+   * @return int[]: the k smallest values in ascending order, or all of them if the array is
+   * shorter than k
+   * @throws IllegalArgumentException if k is negative or the range of values is too wide
+   */
+  public static int[] smallest(int[] array, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("Negative number of values: " + k);
+    }
+    int[] values = new int[Math.min(k, array.length)];
+    if (values.length == 0) {
+      return values;
+    }
+    int[] minMax = getMinMax(array);
+    int min = minMax[0];
+    int[] counts = countValues(array, min, holesCount(min, minMax[1]));
+    int i = 0;
+    for (int hole = 0; i < values.length; hole++) {
+      int count = Math.min(counts[hole], values.length - i);
+      Arrays.fill(values, i, i + count, min + hole);
+      i += count;
+    }
+    return values;
+  }
+
+  /**
+   * Get the k largest values of given int array in descending order, without sorting it. The
+   * pigeonholes are walked from the maximum and the walk stops as soon as k values are written.
+   *
+   * @param array int[]: the values, left unchanged
+   * @param k int: the number of values to get
+   * @return int[]: the k largest values in descending order, or all of them if the array is
+   * shorter than k
+   * @throws IllegalArgumentException if k is negative or the range of values is too wide
+   */
+  public static int[] largest(int[] array, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("Negative number of values: " + k);
+    }
+    int[] values = new int[Math.min(k, array.length)];
+    if (values.length == 0) {
+      return values;
+    }
+    int[] minMax = getMinMax(array);
+    int min = minMax[0];
+    int[] counts = countValues(array, min, holesCount(min, minMax[1]));
+    int i = 0;
+    for (int hole = counts.length - 1; i < values.length; hole--) {
+      int count = Math.min(counts[hole], values.length - i);
+      Arrays.fill(values, i, i + count, min + hole);
+      i += count;
+    }
+    return values;
+  }
+
+  /**
+   * Get the values of given int array between lo and hi, both included, in ascending order. Only
+   * the pigeonholes between the lowest and the highest value inside the window are allocated, so
+   * values outside of it don't widen the range.
+   *
+   * @param array int[]: the values, left unchanged
+   * @param lo int: the lowest value to get
+   * @param hi int: the highest value to get
+   * @return int[]: the values between lo and hi in ascending order
+   * @throws IllegalArgumentException if lo is greater than hi or the range of values inside the
+   * window is too wide
+   */
+  public static int[] extractRange(int[] array, int lo, int hi) {
+    if (lo > hi) {
+      throw new IllegalArgumentException("Empty window [" + lo + ", " + hi + "]");
+    }
+    int min = hi;
+    int max = lo;
+    int length = 0;
+    for (int value : array) {
+      if (value >= lo && value <= hi) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        length++;
+      }
+    }
+    int[] values = new int[length];
+    if (length == 0) {
+      return values;
+    }
+    int[] counts = new int[holesCount(min, max)];
+    for (int value : array) {
+      if (value >= min && value <= max) {
+        counts[value - min]++;
+      }
+    }
+    int i = 0;
+    for (int hole = 0; i < length; hole++) {
+      int count = counts[hole];
+      Arrays.fill(values, i, i + count, min + hole);
+      i += count;
+    }
+    return values;
+  }
+
+  /**
+   * Get the distinct values of given int array in ascending order, using a single bit per
+   * pigeonhole instead of a counter. Any range of values is supported, up to the full int range.
+   *
+   * @param array int[]: the values, left unchanged
+   * @return int[]: the sorted values without duplicates
+   * @see DistinctKeySet
+   */
+  public static int[] sortDistinct(int[] array) {
+    return new DistinctKeySet(array).toArray();
+  }
+
+  /**
+   * Sort every array of a batch using pigeonhole sort algorithm. All the arrays share the
+   * counters of the {@link PigeonholeSorter} of the current thread, so sorting many small arrays
+   * doesn't allocate and clears only the pigeonholes each array touched.
+   *
+   * @param arrays int[][]: the arrays to sort, each one independently
+   * @throws IllegalArgumentException if the range of values of an array is too wide
+   */
+  public static void sortAll(int[][] arrays) {
+    PigeonholeSorter sorter = PigeonholeSorter.forCurrentThread();
+    for (int[] array : arrays) {
+      sorter.sort(array);
+    }
+  }
+
+  /**
+   * Sort every segment of an array using pigeonhole sort algorithm, with the segments given in
+   * compressed sparse row layout: segment i goes from offsets[i], inclusive, to offsets[i + 1],
+   * exclusive. All the segments share the counters of the {@link PigeonholeSorter} of the current
+   * thread.
+   *
+   * @param data int[]: the array containing the segments
+   * @param offsets int[]: the start of every segment followed by the end of the last one
+   * @throws IllegalArgumentException if the range of values of a segment is too wide
+   * @throws ArrayIndexOutOfBoundsException if the offsets are decreasing or outside of the data
+   */
+  public static void sortSegments(int[] data, int[] offsets) {
+    PigeonholeSorter sorter = PigeonholeSorter.forCurrentThread();
+    for (int segment = 0; segment < offsets.length - 1; segment++) {
+      sorter.sort(data, offsets[segment], offsets[segment + 1]);
+    }
+  }
+
+  /**
+   * Sort every array of a batch using pigeonhole sort algorithm, spreading the arrays between the
+   * threads of the common pool, or of the pool of the caller when called from a fork/join task.
+   *
+   * @param arrays int[][]: the arrays to sort, each one independently
+   * @throws IllegalArgumentException if the range of values of an array is too wide
+   * @see #sortAll(int[][])
+   */
+  public static void parallelSortAll(int[][] arrays) {
+    ParallelPigeonholeSort.sortAll(arrays, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sort every segment of an array using pigeonhole sort algorithm, spreading the segments
+   * between the threads of the common pool, or of the pool of the caller when called from a
+   * fork/join task.
+   *
+   * @param data int[]: the array containing the segments
+   * @param offsets int[]: the start of every segment followed by the end of the last one
+   * @throws IllegalArgumentException if the range of values of a segment is too wide
+   * @throws ArrayIndexOutOfBoundsException if the offsets are decreasing or outside of the data
+   * @see #sortSegments(int[], int[])
+   */
+  public static void parallelSortSegments(int[] data, int[] offsets) {
+    ParallelPigeonholeSort.sortSegments(data, offsets, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm with counters stored outside of the
+   * heap. Any range of values is supported, up to the full int range, and the memory of the
+   * counters is released as soon as the sort is done.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @throws OutOfMemoryError if there's not enough direct memory for the counters
+   * @see OffHeapCounts
+   */
+  public static void sortOffHeap(int[] arrayToSort) {
+    sort(arrayToSort, OffHeapCounts::new);
+  }
+
+  /**
+   * Sort given long array using pigeonhole sort algorithm with counters stored outside of the
+   * heap. Ranges of up to 2^32 values are supported, for example unsigned 32 bit values, and the
+   * memory of the counters is released as soon as the sort is done.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is wider than 2^32
+   * @throws OutOfMemoryError if there's not enough direct memory for the counters
+   * @see OffHeapCounts
+   */
+  public static void sortOffHeap(long[] arrayToSort) {
+    sort(arrayToSort, OffHeapCounts::new);
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm with a byte counter per pigeonhole.
+   * Counters use a quarter of the memory of {@link #sort(int[])} when values are rarely repeated
+   * more than 254 times, as on wide and sparse ranges.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   * @see CompactCounts
+   */
+  public static void sortCompact(int[] arrayToSort) {
+    sort(arrayToSort, CompactCounts::new);
+  }
+
+  /**
+   * Sort given long array using pigeonhole sort algorithm with a byte counter per pigeonhole.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   * @see CompactCounts
+   */
+  public static void sortCompact(long[] arrayToSort) {
+    sort(arrayToSort, CompactCounts::new);
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm and record a trace of every event.
+   * Presorted input is not detected, so that the trace always contains the three phases of the
+   * algorithm.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @return SortTrace: the trace of the sort
+   * @throws IllegalArgumentException if the range of values is too wide
+   * @see SortTrace
+   */
+  public static SortTrace sortTraced(int[] arrayToSort) {
+    SortTrace.Recorder trace = new SortTrace.Recorder(arrayToSort.length);
+    for (int value : arrayToSort) {
+      trace.scan(value);
+    }
+    if (arrayToSort.length == 0) {
+      return trace.finish();
+    }
+    int min = trace.min();
+    int[] counts = new int[holesCount(min, trace.max())];
+    for (int i = 0; i < arrayToSort.length; i++) {
+      trace.place(i, ++counts[arrayToSort[i] - min]);
+    }
+    int i = 0;
+    for (int hole = 0; hole < counts.length; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        trace.writeBack(hole, i);
+        Arrays.fill(arrayToSort, i, i + count, min + hole);
+        i += count;
+      }
+    }
+    return trace.finish();
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm with counters created by a given
+   * factory. The counters are closed when the sort is done.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param countsFactory LongFunction: function creating zeroed counters for a number of
+   * pigeonholes
+   * @throws IllegalArgumentException if the counters can't hold the range of values
+   */
+  public static void sort(int[] arrayToSort, LongFunction<? extends HoleCounts> countsFactory) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    int[] minMax = getMinMax(arrayToSort);
+    int min = minMax[0];
+    try (HoleCounts counts = countsFactory.apply((long) minMax[1] - min + 1)) {
+      histogram(arrayToSort, min, counts);
+      int i = 0;
+      for (long hole = 0; hole < counts.holes(); hole++) {
+        int count = counts.get(hole);
+        if (count > 0) {
+          Arrays.fill(arrayToSort, i, i + count, (int) (min + hole));
+          i += count;
+        }
+      }
+    }
+  }
+
+  /**
+   * Sort given long array using pigeonhole sort algorithm with counters created by a given
+   * factory. The counters are closed when the sort is done.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @param countsFactory LongFunction: function creating zeroed counters for a number of
+   * pigeonholes
+   * @throws IllegalArgumentException if the counters can't hold the range of values
+   */
+  public static void sort(long[] arrayToSort, LongFunction<? extends HoleCounts> countsFactory) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    long[] minMax = getMinMax(arrayToSort);
+    long min = minMax[0];
+    long range = minMax[1] - min;
+    //the subtraction overflows to a negative number when the range is wider than a long
+    if (range < 0 || range >= OffHeapCounts.MAX_HOLES) {
+      throw new IllegalArgumentException(
+          "Range of values [" + min + ", " + minMax[1] + "] is too wide for pigeonhole sort");
+    }
+    try (HoleCounts counts = countsFactory.apply(range + 1)) {
+      histogram(arrayToSort, min, counts);
+      int i = 0;
+      for (long hole = 0; hole < counts.holes(); hole++) {
+        int count = counts.get(hole);
+        if (count > 0) {
+          Arrays.fill(arrayToSort, i, i + count, min + hole);
+          i += count;
+        }
+      }
+    }
+  }
+
+  /**
+   * Count the values of an array in given pigeonhole counters, the first pigeonhole holding the
+   * minimum value. Counters already present are added to.
+   *
+   * @param values int[]: the values to count
+   * @param min long: the value of the first pigeonhole
+   * @param counts HoleCounts: the counters to increment
+   * @throws IllegalArgumentException if a value is outside of the pigeonholes
+   */
+  public static void histogram(int[] values, long min, HoleCounts counts) {
+    long holes = counts.holes();
+    for (int value : values) {
+      long hole = value - min;
+      if (hole < 0 || hole >= holes) {
+        throw new IllegalArgumentException("Value " + value + " outside of the pigeonholes");
+      }
+      counts.increment(hole);
+    }
+  }
+
+  /**
+   * Count the values of an array in given pigeonhole counters, the first pigeonhole holding the
+   * minimum value. Counters already present are added to.
+   *
+   * @param values long[]: the values to count
+   * @param min long: the value of the first pigeonhole
+   * @param counts HoleCounts: the counters to increment
+   * @throws IllegalArgumentException if a value is outside of the pigeonholes
+   */
+  public static void histogram(long[] values, long min, HoleCounts counts) {
+    long holes = counts.holes();
+    for (long value : values) {
+      long hole = value - min;
+      //the subtraction overflows to a negative number when value and minimum are too far apart
+      if (hole < 0 || hole >= holes) {
+        throw new IllegalArgumentException("Value " + value + " outside of the pigeonholes");
+      }
+      counts.increment(hole);
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,295 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reusable pigeonhole sorter that owns its counters and temporary buffers.
+ * <p>
+ * {@link PigeonholeSort} allocates new counters at every call. A sorter instead keeps them
+ * between calls and grows them only when a wider range or a longer array arrives, so sorting many
+ * batches with similar ranges doesn't allocate. Only the pigeonholes touched by a sort are cleared
+ * afterwards. Buffers larger than a configurable limit are used for a single call and not
+ * retained, so a single huge batch doesn't pin memory.
+ * <p>
+ * A sorter is not thread safe. {@link #forCurrentThread()} gives every thread a sorter of its
+ * own.
+ */
+public class PigeonholeSorter {
+
+  /**
+   * Default maximum length of the buffers kept between calls.
+   */
+  public static final int DEFAULT_MAX_RETAINED_LENGTH = 1 << 20;
+
+  /**
+   * Sorter of every thread, created at the first use.
+   */
+  private static final ThreadLocal<PigeonholeSorter> THREAD_SORTERS =
+      ThreadLocal.withInitial(PigeonholeSorter::new);
+
+  /**
+   * Maximum length of the buffers kept between calls.
+   */
+  private final int maxRetainedLength;
+
+  /**
+   * Counters of the pigeonholes. All zero between calls.
+   */
+  private int[] counts = new int[0];
+
+  /**
+   * Keys of the elements of the array to sort.
+   */
+  private int[] keys = new int[0];
+
+  /**
+   * Temporary copy of the array to sort. All null between calls.
+   */
+  private Object[] tmpArray = new Object[0];
+
+  /**
+   * Create a new sorter that keeps buffers up to the default length.
+   */
+  public PigeonholeSorter() {
+    this(DEFAULT_MAX_RETAINED_LENGTH);
+  }
+
+  /**
+   * Create a new sorter.
+   *
+   * @param maxRetainedLength int: maximum length of the buffers kept between calls
+   * @throws IllegalArgumentException if the length is negative
+   */
+  public PigeonholeSorter(int maxRetainedLength) {
+    if (maxRetainedLength < 0) {
+      throw new IllegalArgumentException("Negative maximum length: " + maxRetainedLength);
+    }
+    this.maxRetainedLength = maxRetainedLength;
+  }
+
+  /**
+   * Get the sorter of the current thread. Worker threads calling this method reuse the same
+   * buffers at every call.
+   *
+   * @return PigeonholeSorter: the sorter of the current thread
+   */
+  public static PigeonholeSorter forCurrentThread() {
+    return THREAD_SORTERS.get();
+  }
+
+  /**
+   * Get zeroed counters for a number of pigeonholes, growing the retained ones if needed.
+   *
+   * @param holes int: the number of pigeonholes
+   * @return int[]: counters at least as long as holes, zero in the first holes positions
+   */
+  private int[] counts(int holes) {
+    if (holes <= counts.length) {
+      return counts;
+    }
+    if (holes > maxRetainedLength) {
+      return new int[holes];
+    }
+    counts = new int[grow(counts.length, holes)];
+    return counts;
+  }
+
+  /**
+   * Get a buffer for the keys of an array, growing the retained one if needed.
+   *
+   * @param length int: the length of the array
+   * @return int[]: a buffer at least as long as length
+   */
+  private int[] keys(int length) {
+    if (length <= keys.length) {
+      return keys;
+    }
+    if (length > maxRetainedLength) {
+      return new int[length];
+    }
+    keys = new int[grow(keys.length, length)];
+    return keys;
+  }
+
+  /**
+   * Get a buffer for the copy of an array, growing the retained one if needed.
+   *
+   * @param length int: the length of the array
+   * @return Object[]: a buffer at least as long as length, null in the first length positions
+   */
+  private Object[] tmpArray(int length) {
+    if (length <= tmpArray.length) {
+      return tmpArray;
+    }
+    if (length > maxRetainedLength) {
+      return new Object[length];
+    }
+    tmpArray = new Object[grow(tmpArray.length, length)];
+    return tmpArray;
+  }
+
+  /**
+   * Get the new length of a buffer. The length at least doubles, so that a sequence of growing
+   * requests allocates only a logarithmic number of times.
+   *
+   * @param length int: the current length
+   * @param required int: the minimum new length
+   * @return int: the new length
+   */
+  private int grow(int length, int required) {
+    return (int) Math.max(required, Math.min(maxRetainedLength, 2L * length));
+  }
+
+  /**
+   * Sort given int array using pigeonhole sort algorithm.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   */
+  public void sort(int[] arrayToSort) {
+    sort(arrayToSort, 0, arrayToSort.length);
+  }
+
+  /**
+   * Sort a range of given int array using pigeonhole sort algorithm.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   * @param from int: the index of the first element to sort, inclusive
+   * @param to int: the index of the last element to sort, exclusive
+   * @throws IllegalArgumentException if the range of values is too wide
+   * @throws ArrayIndexOutOfBoundsException if from or to are outside of the array
+   */
+  public void sort(int[] arrayToSort, int from, int to) {
+    if (from < 0 || to > arrayToSort.length || from > to) {
+      throw new ArrayIndexOutOfBoundsException("Range [" + from + ", " + to
+          + ") out of array of length " + arrayToSort.length);
+    }
+    if (to - from < 2) {
+      return;
+    }
+    int min = arrayToSort[from];
+    int max = min;
+    for (int i = from; i < to; i++) {
+      int value = arrayToSort[i];
+      if (value < min) {
+        min = value;
+      } else if (value > max) {
+        max = value;
+      }
+    }
+    int holes = PigeonholeSort.holesCount(min, max);
+    int[] counts = counts(holes);
+    for (int i = from; i < to; i++) {
+      counts[arrayToSort[i] - min]++;
+    }
+    int i = from;
+    for (int hole = 0; hole < holes; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        counts[hole] = 0;
+        Arrays.fill(arrayToSort, i, i + count, min + hole);
+        i += count;
+      }
+    }
+  }
+
+  /**
+   * Sort given long array using pigeonhole sort algorithm.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   * @throws IllegalArgumentException if the range of values is too wide
+   */
+  public void sort(long[] arrayToSort) {
+    if (arrayToSort.length < 2) {
+      return;
+    }
+    long min = arrayToSort[0];
+    long max = min;
+    for (long value : arrayToSort) {
+      if (value < min) {
+        min = value;
+      } else if (value > max) {
+        max = value;
+      }
+    }
+    int holes = PigeonholeSort.holesCount(min, max);
+    int[] counts = counts(holes);
+    for (long value : arrayToSort) {
+      counts[(int) (value - min)]++;
+    }
+    int i = 0;
+    for (int hole = 0; hole < holes; hole++) {
+      int count = counts[hole];
+      if (count > 0) {
+        counts[hole] = 0;
+        Arrays.fill(arrayToSort, i, i + count, min + hole);
+        i += count;
+      }
+    }
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using pigeonhole sort algorithm. The
+   * sort is stable.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element. It's called once per
+   * element.
+   * @param <Type> Type of the array, inferred.
+   * @throws IllegalArgumentException if the range of keys is too wide
+   */
+  public <Type> void sort(Type[] arrayToSort, ToIntFunction<? super Type> key) {
+    int length = arrayToSort.length;
+    if (length < 2) {
+      return;
+    }
+    int[] keys = keys(length);
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < length; i++) {
+      int value = key.applyAsInt(arrayToSort[i]);
+      keys[i] = value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    int holes = PigeonholeSort.holesCount(min, max);
+    int[] counts = counts(holes);
+    for (int i = 0; i < length; i++) {
+      counts[keys[i] - min]++;
+    }
+    int offset = 0;
+    for (int hole = 0; hole < holes; hole++) {
+      int count = counts[hole];
+      counts[hole] = offset;
+      offset += count;
+    }
+    Object[] tmpArray = tmpArray(length);
+    System.arraycopy(arrayToSort, 0, tmpArray, 0, length);
+    for (int i = 0; i < length; i++) {
+      @SuppressWarnings("unchecked")
+      Type element = (Type) tmpArray[i];
+      arrayToSort[counts[keys[i] - min]++] = element;
+    }
+    //leave counters at zero and drop the references to the elements
+    Arrays.fill(counts, 0, holes, 0);
+    Arrays.fill(tmpArray, 0, length, null);
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Abstract class containing sort methods using least significant digit radix sort.
+ * <p>
+ * Every pass is a stable pigeonhole sort on a single 8 bit digit of the keys, so keys of any
+ * range are sorted in linear time with only 256 pigeonholes. The sign bit is flipped before
+ * taking the digits, so negative keys come before positive ones. The histograms of all the
+ * digits are built with a single read of the array and a pass is skipped when all the keys share
+ * the same digit.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Radix_sort">Wikipedia page for radix sort</a>
+ */
+public abstract class RadixSort {
+
+  /**
+   * Number of bits of a digit.
+   */
+  static final int DIGIT_BITS = 8;
+
+  /**
+   * Number of pigeonholes of a pass, one for each possible digit.
+   */
+  static final int HOLES = 1 << DIGIT_BITS;
+
+  /**
+   * Mask selecting the lowest digit of a key.
+   */
+  private static final int DIGIT_MASK = HOLES - 1;
+
+  /**
+   * Get a digit of an int key, with the sign bit flipped.
+   *
+   * @param key int: the key
+   * @param pass int: the index of the digit, 0 for the least significant one
+   * @return int: the digit, between 0 and 255
+   */
+  private static int digit(int key, int pass) {
+    return ((key ^ Integer.MIN_VALUE) >>> (pass * DIGIT_BITS)) & DIGIT_MASK;
+  }
+
+  /**
+   * Get a digit of a long key, with the sign bit flipped.
+   *
+   * @param key long: the key
+   * @param pass int: the index of the digit, 0 for the least significant one
+   * @return int: the digit, between 0 and 255
+   */
+  private static int digit(long key, int pass) {
+    return (int) ((key ^ Long.MIN_VALUE) >>> (pass * DIGIT_BITS)) & DIGIT_MASK;
+  }
+
+  /**
+   * Check if a pass can be skipped because all the keys have the same digit.
+   *
+   * @param counts int[]: the histogram of the digit
+   * @param firstDigit int: the digit of any key
+   * @param length int: the number of keys
+   * @return boolean: true if the pass would leave the array unchanged
+   */
+  private static boolean isTrivialPass(int[] counts, int firstDigit, int length) {
+    return counts[firstDigit] == length;
+  }
+
+  /**
+   * Sort given int array using radix sort.
+   *
+   * @param arrayToSort int[]: the array to sort.
+   */
+  public static void sort(int[] arrayToSort) {
+    int length = arrayToSort.length;
+    if (length < 2) {
+      return;
+    }
+    int passes = Integer.SIZE / DIGIT_BITS;
+    int[][] counts = new int[passes][HOLES];
+    for (int value : arrayToSort) {
+      for (int pass = 0; pass < passes; pass++) {
+        counts[pass][digit(value, pass)]++;
+      }
+    }
+    int[] source = arrayToSort;
+    int[] destination = null;
+    for (int pass = 0; pass < passes; pass++) {
+      int[] offsets = counts[pass];
+      if (isTrivialPass(offsets, digit(source[0], pass), length)) {
+        continue;
+      }
+      if (destination == null) {
+        destination = new int[length];
+      }
+      PigeonholeSort.toOffsets(offsets);
+      for (int value : source) {
+        destination[offsets[digit(value, pass)]++] = value;
+      }
+      int[] swap = source;
+      source = destination;
+      destination = swap;
+    }
+    if (source != arrayToSort) {
+      System.arraycopy(source, 0, arrayToSort, 0, length);
+    }
+  }
+
+  /**
+   * Sort given long array using radix sort.
+   *
+   * @param arrayToSort long[]: the array to sort.
+   */
+  public static void sort(long[] arrayToSort) {
+    int length = arrayToSort.length;
+    if (length < 2) {
+      return;
+    }
+    int passes = Long.SIZE / DIGIT_BITS;
+    int[][] counts = new int[passes][HOLES];
+    for (long value : arrayToSort) {
+      for (int pass = 0; pass < passes; pass++) {
+        counts[pass][digit(value, pass)]++;
+      }
+    }
+    long[] source = arrayToSort;
+    long[] destination = null;
+    for (int pass = 0; pass < passes; pass++) {
+      int[] offsets = counts[pass];
+      if (isTrivialPass(offsets, digit(source[0], pass), length)) {
+        continue;
+      }
+      if (destination == null) {
+        destination = new long[length];
+      }
+      PigeonholeSort.toOffsets(offsets);
+      for (long value : source) {
+        destination[offsets[digit(value, pass)]++] = value;
+      }
+      long[] swap = source;
+      source = destination;
+      destination = swap;
+    }
+    if (source != arrayToSort) {
+      System.arraycopy(source, 0, arrayToSort, 0, length);
+    }
+  }
+
+  /**
+   * Sort given array by the integer key of its elements using radix sort. The sort is stable.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param key ToIntFunction: function giving the key of an element. It's called once per
+   * element.
+   * @param <Type> Type of the array, inferred.
+   */
+  public static <Type> void sort(Type[] arrayToSort, ToIntFunction<? super Type> key) {
+    int[] keys = new int[arrayToSort.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = key.applyAsInt(arrayToSort[i]);
+    }
+    sort(arrayToSort, keys);
+  }
+
+  /**
+   * Sort given array by the already extracted keys of its elements. The keys are sorted too.
+   *
+   * @param arrayToSort Type[]: the array to sort.
+   * @param keys int[]: the keys of the elements, in the same order of the array
+   * @param <Type> Type of the array, inferred.
+   */
+  static <Type> void sort(Type[] arrayToSort, int[] keys) {
+    int length = arrayToSort.length;
+    if (length < 2) {
+      return;
+    }
+    int passes = Integer.SIZE / DIGIT_BITS;
+    int[][] counts = new int[passes][HOLES];
+    for (int value : keys) {
+      for (int pass = 0; pass < passes; pass++) {
+        counts[pass][digit(value, pass)]++;
+      }
+    }
+    Type[] source = arrayToSort;
+    int[] sourceKeys = keys;
+    Type[] destination = null;
+    int[] destinationKeys = null;
+    for (int pass = 0; pass < passes; pass++) {
+      int[] offsets = counts[pass];
+      if (isTrivialPass(offsets, digit(sourceKeys[0], pass), length)) {
+        continue;
+      }
+      if (destination == null) {
+        destination = Arrays.copyOf(arrayToSort, length);
+        destinationKeys = new int[length];
+      }
+      PigeonholeSort.toOffsets(offsets);
+      for (int i = 0; i < length; i++) {
+        int position = offsets[digit(sourceKeys[i], pass)]++;
+        destination[position] = source[i];
+        destinationKeys[position] = sourceKeys[i];
+      }
+      Type[] swap = source;
+      source = destination;
+      destination = swap;
+      int[] swapKeys = sourceKeys;
+      sourceKeys = destinationKeys;
+      destinationKeys = swapKeys;
+    }
+    if (source != arrayToSort) {
+      System.arraycopy(source, 0, arrayToSort, 0, length);
+      System.arraycopy(sourceKeys, 0, keys, 0, length);
+    }
+  }
+}
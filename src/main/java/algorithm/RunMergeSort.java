@@ -0,0 +1,217 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Abstract class containing the sorts used by {@link PigeonholeSort} for arrays that are already
+ * partially sorted: reversal of descending arrays and merge of arrays made of a few ascending
+ * runs.
+ * <p>
+ * Runs are merged pairwise, bottom up, alternating between the array and a buffer of the same
+ * length, so an array of r runs is sorted in ceil(log2(r)) passes. Merges take the element of the
+ * left run when keys are equal, so they are stable.
+ */
+abstract class RunMergeSort {
+
+  /**
+   * Reverse an int array in place.
+   *
+   * @param array int[]: the array to reverse
+   */
+  static void reverse(int[] array) {
+    for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+      int tmp = array[i];
+      array[i] = array[j];
+      array[j] = tmp;
+    }
+  }
+
+  /**
+   * Reverse a long array in place.
+   *
+   * @param array long[]: the array to reverse
+   */
+  static void reverse(long[] array) {
+    for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+      long tmp = array[i];
+      array[i] = array[j];
+      array[j] = tmp;
+    }
+  }
+
+  /**
+   * Reverse an array in place.
+   *
+   * @param array Type[]: the array to reverse
+   * @param <Type> Type of the array, inferred.
+   */
+  static <Type> void reverse(Type[] array) {
+    for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+      Type tmp = array[i];
+      array[i] = array[j];
+      array[j] = tmp;
+    }
+  }
+
+  /**
+   * Get the number of merge passes needed for a number of runs.
+   *
+   * @param runs long: the number of ascending runs, at least 1
+   * @return int: ceil(log2(runs))
+   */
+  static int passes(long runs) {
+    return Long.SIZE - Long.numberOfLeadingZeros(runs - 1);
+  }
+
+  /**
+   * Merge the ascending runs of an int array.
+   *
+   * @param array int[]: the array to sort
+   * @param runs int: the number of ascending runs of the array
+   */
+  static void sort(int[] array, int runs) {
+    int length = array.length;
+    int[] starts = new int[runs + 1];
+    for (int i = 1, run = 1; i < length; i++) {
+      if (array[i] < array[i - 1]) {
+        starts[run++] = i;
+      }
+    }
+    starts[runs] = length;
+    int[] source = array;
+    int[] destination = new int[length];
+    while (runs > 1) {
+      int merged = 0;
+      for (int run = 0; run < runs; run += 2) {
+        int from = starts[run];
+        int middle = starts[Math.min(run + 1, runs)];
+        int to = starts[Math.min(run + 2, runs)];
+        for (int i = from, left = from, right = middle; i < to; i++) {
+          if (right == to || left < middle && source[left] <= source[right]) {
+            destination[i] = source[left++];
+          } else {
+            destination[i] = source[right++];
+          }
+        }
+        starts[merged++] = from;
+      }
+      starts[merged] = length;
+      runs = merged;
+      int[] tmp = source;
+      source = destination;
+      destination = tmp;
+    }
+    if (source != array) {
+      System.arraycopy(source, 0, array, 0, length);
+    }
+  }
+
+  /**
+   * Merge the ascending runs of a long array.
+   *
+   * @param array long[]: the array to sort
+   * @param runs int: the number of ascending runs of the array
+   */
+  static void sort(long[] array, int runs) {
+    int length = array.length;
+    int[] starts = new int[runs + 1];
+    for (int i = 1, run = 1; i < length; i++) {
+      if (array[i] < array[i - 1]) {
+        starts[run++] = i;
+      }
+    }
+    starts[runs] = length;
+    long[] source = array;
+    long[] destination = new long[length];
+    while (runs > 1) {
+      int merged = 0;
+      for (int run = 0; run < runs; run += 2) {
+        int from = starts[run];
+        int middle = starts[Math.min(run + 1, runs)];
+        int to = starts[Math.min(run + 2, runs)];
+        for (int i = from, left = from, right = middle; i < to; i++) {
+          if (right == to || left < middle && source[left] <= source[right]) {
+            destination[i] = source[left++];
+          } else {
+            destination[i] = source[right++];
+          }
+        }
+        starts[merged++] = from;
+      }
+      starts[merged] = length;
+      runs = merged;
+      long[] tmp = source;
+      source = destination;
+      destination = tmp;
+    }
+    if (source != array) {
+      System.arraycopy(source, 0, array, 0, length);
+    }
+  }
+
+  /**
+   * Merge the ascending runs of the keys of an array, moving the elements with their keys. The
+   * sort is stable.
+   *
+   * @param array Type[]: the array to sort
+   * @param keys int[]: the keys of the elements, in the same order of the array. They are
+   * overwritten.
+   * @param runs int: the number of ascending runs of the keys
+   * @param <Type> Type of the array, inferred.
+   */
+  static <Type> void sort(Type[] array, int[] keys, int runs) {
+    int length = array.length;
+    int[] starts = new int[runs + 1];
+    for (int i = 1, run = 1; i < length; i++) {
+      if (keys[i] < keys[i - 1]) {
+        starts[run++] = i;
+      }
+    }
+    starts[runs] = length;
+    Object[] source = array;
+    Object[] destination = new Object[length];
+    int[] sourceKeys = keys;
+    int[] destinationKeys = new int[length];
+    while (runs > 1) {
+      int merged = 0;
+      for (int run = 0; run < runs; run += 2) {
+        int from = starts[run];
+        int middle = starts[Math.min(run + 1, runs)];
+        int to = starts[Math.min(run + 2, runs)];
+        for (int i = from, left = from, right = middle; i < to; i++) {
+          int next = right == to || left < middle && sourceKeys[left] <= sourceKeys[right]
+              ? left++ : right++;
+          destination[i] = source[next];
+          destinationKeys[i] = sourceKeys[next];
+        }
+        starts[merged++] = from;
+      }
+      starts[merged] = length;
+      runs = merged;
+      Object[] tmp = source;
+      source = destination;
+      destination = tmp;
+      int[] tmpKeys = sourceKeys;
+      sourceKeys = destinationKeys;
+      destinationKeys = tmpKeys;
+    }
+    if (source != array) {
+      System.arraycopy(source, 0, array, 0, length);
+    }
+  }
+}
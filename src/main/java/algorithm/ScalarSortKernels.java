@@ -0,0 +1,62 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import static algorithm.PigeonholeSort.SUB_HISTOGRAMS;
+
+/**
+ * Scalar kernels, used when the Vector API is not available. The loops are branch free, so that
+ * the JIT can still turn them into vector instructions on its own.
+ */
+final class ScalarSortKernels implements SortKernels {
+
+  @Override
+  public int[] minMax(int[] array, int from, int min, int max) {
+    for (int i = from; i < array.length; i++) {
+      min = Math.min(min, array[i]);
+      max = Math.max(max, array[i]);
+    }
+    return new int[]{min, max};
+  }
+
+  @Override
+  public long[] minMax(long[] array, int from, long min, long max) {
+    for (int i = from; i < array.length; i++) {
+      min = Math.min(min, array[i]);
+      max = Math.max(max, array[i]);
+    }
+    return new long[]{min, max};
+  }
+
+  @Override
+  public void countInterleaved(int[] array, int min, int holes, int[] counts) {
+    int second = holes - min;
+    int third = 2 * holes - min;
+    int fourth = 3 * holes - min;
+    int i = 0;
+    for (int end = array.length - SUB_HISTOGRAMS + 1; i < end; i += SUB_HISTOGRAMS) {
+      counts[array[i] - min]++;
+      counts[array[i + 1] + second]++;
+      counts[array[i + 2] + third]++;
+      counts[array[i + 3] + fourth]++;
+    }
+    for (; i < array.length; i++) {
+      counts[array[i] - min]++;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event committed by every sort that collects {@link SortMetrics}, with the same
+ * values of the metrics. The duration of the event is the duration of the whole sort.
+ */
+@Name(SortEvent.NAME)
+@Label("Sort")
+@Category("PigeonholeSort")
+@Description("A sort run with metrics")
+@StackTrace(false)
+final class SortEvent extends Event {
+
+  /**
+   * Name of the event, used for enabling it in a recording.
+   */
+  static final String NAME = "algorithm.Sort";
+
+  @Label("Strategy")
+  String strategy;
+
+  @Label("Length")
+  int length;
+
+  @Label("Minimum")
+  long min;
+
+  @Label("Maximum")
+  long max;
+
+  @Label("Pigeonholes")
+  long holes;
+
+  @Label("Occupied Pigeonholes")
+  long occupiedHoles;
+
+  @Label("Maximum Pigeonhole Depth")
+  long maxHoleDepth;
+
+  @Label("Allocated")
+  @DataAmount
+  long allocatedBytes;
+
+  @Label("Scan Time")
+  @Timespan
+  long scanNanos;
+
+  @Label("Count Time")
+  @Timespan
+  long countNanos;
+
+  @Label("Write Time")
+  @Timespan
+  long writeNanos;
+}
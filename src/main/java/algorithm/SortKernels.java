@@ -0,0 +1,85 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Kernels of the scan and count phases of the primitive sorts of {@link PigeonholeSort}.
+ * <p>
+ * When the jdk.incubator.vector module is present the kernels written with the Vector API are
+ * used, otherwise the scalar ones. The vector kernels are in the vector source set, built only by
+ * JDK 17 and later and loaded by name, so the rest of the project still runs on Java 11.
+ */
+interface SortKernels {
+
+  /**
+   * Name of the class of the vector kernels.
+   */
+  String VECTOR_KERNELS = "algorithm.VectorSortKernels";
+
+  /**
+   * Load the vector kernels when the incubator module and the class are available, the scalar
+   * ones otherwise.
+   *
+   * @return SortKernels: the kernels to use
+   */
+  static SortKernels load() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        return (SortKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        //the vector source set wasn't built, use the scalar kernels
+      }
+    }
+    return new ScalarSortKernels();
+  }
+
+  /**
+   * Get minimum and maximum of the values of an int array from an index on.
+   *
+   * @param array int[]: the array to scan
+   * @param from int: the index of the first value to scan
+   * @param min int: the minimum of the values before the index
+   * @param max int: the maximum of the values before the index
+   * @return int[]: array of two elements, the minimum and the maximum value
+   */
+  int[] minMax(int[] array, int from, int min, int max);
+
+  /**
+   * Get minimum and maximum of the values of a long array from an index on.
+   *
+   * @param array long[]: the array to scan
+   * @param from int: the index of the first value to scan
+   * @param min long: the minimum of the values before the index
+   * @param max long: the maximum of the values before the index
+   * @return long[]: array of two elements, the minimum and the maximum value
+   */
+  long[] minMax(long[] array, int from, long min, long max);
+
+  /**
+   * Count the values of an int array in {@link PigeonholeSort#SUB_HISTOGRAMS} histograms laid
+   * out one after the other, so that consecutive values increment different histograms. Every
+   * value is counted once, in any of the histograms.
+   *
+   * @param array int[]: the values to count
+   * @param min int: the value of the first pigeonhole
+   * @param holes int: the number of pigeonholes of a histogram, covering every value
+   * @param counts int[]: the histograms to fill, of length {@link PigeonholeSort#SUB_HISTOGRAMS}
+   * times holes
+   */
+  void countInterleaved(int[] array, int min, int holes, int[] counts);
+}
@@ -0,0 +1,269 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Metrics of a single sort, filled by the overloads of {@link PigeonholeSort} that accept them.
+ * <p>
+ * A sort is split in three phases: the scan extracts the keys and finds minimum and maximum, the
+ * count fills the pigeonholes and the write moves the elements to their sorted positions. When
+ * the sort doesn't use pigeonholes, everything after the scan is reported as the write phase.
+ * Allocated bytes are estimated from the length of the pigeonholes and scratch arrays, counting
+ * 4 bytes for a reference. The statistics of the pigeonholes are computed outside of the timed
+ * phases.
+ * <p>
+ * Every sort also commits a flight recorder event named "algorithm.Sort" with the same values.
+ * A metrics object can be reused, each sort replaces the values of the previous one. It's not
+ * thread safe.
+ */
+public final class SortMetrics {
+
+  private SortStrategy strategy;
+  private int length;
+  private long min;
+  private long max;
+  private long holes;
+  private long occupiedHoles;
+  private long maxHoleDepth;
+  private long allocatedBytes;
+  private long scanNanos;
+  private long countNanos;
+  private long writeNanos;
+
+  /**
+   * Start time of the current phase.
+   */
+  private long phaseStart;
+
+  /**
+   * Flight recorder event of the current sort.
+   */
+  private SortEvent event;
+
+  /**
+   * Get the strategy used by the sort.
+   *
+   * @return SortStrategy: the strategy, null before the first sort
+   */
+  public SortStrategy strategy() {
+    return strategy;
+  }
+
+  /**
+   * Get the number of elements sorted.
+   *
+   * @return int: the length of the array
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Get the minimum key. Zero for arrays shorter than two elements, which are not scanned.
+   *
+   * @return long: the minimum key
+   */
+  public long min() {
+    return min;
+  }
+
+  /**
+   * Get the maximum key. Zero for arrays shorter than two elements, which are not scanned.
+   *
+   * @return long: the maximum key
+   */
+  public long max() {
+    return max;
+  }
+
+  /**
+   * Get the number of pigeonholes allocated.
+   *
+   * @return long: the number of pigeonholes, zero if the sort didn't use them
+   */
+  public long holes() {
+    return holes;
+  }
+
+  /**
+   * Get the number of pigeonholes that received at least an element.
+   *
+   * @return long: the number of occupied pigeonholes
+   */
+  public long occupiedHoles() {
+    return occupiedHoles;
+  }
+
+  /**
+   * Get the fraction of pigeonholes that received at least an element. Low values mean that
+   * most of the time of the write phase is spent skipping empty pigeonholes.
+   *
+   * @return double: occupied pigeonholes divided by pigeonholes, zero if there are none
+   */
+  public double occupancy() {
+    return holes > 0 ? (double) occupiedHoles / holes : 0;
+  }
+
+  /**
+   * Get the number of elements of the fullest pigeonhole. Values close to the length of the
+   * array mean that most keys are equal.
+   *
+   * @return long: the maximum number of elements in a pigeonhole
+   */
+  public long maxHoleDepth() {
+    return maxHoleDepth;
+  }
+
+  /**
+   * Get the estimated number of bytes allocated by the sort.
+   *
+   * @return long: the bytes of the pigeonholes and of the scratch arrays
+   */
+  public long allocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Get the time spent extracting the keys and finding minimum and maximum.
+   *
+   * @return long: the time in nanoseconds
+   */
+  public long scanNanos() {
+    return scanNanos;
+  }
+
+  /**
+   * Get the time spent counting the keys in the pigeonholes.
+   *
+   * @return long: the time in nanoseconds
+   */
+  public long countNanos() {
+    return countNanos;
+  }
+
+  /**
+   * Get the time spent writing the elements in their sorted positions.
+   *
+   * @return long: the time in nanoseconds
+   */
+  public long writeNanos() {
+    return writeNanos;
+  }
+
+  /**
+   * Start recording a new sort, clearing the values of the previous one.
+   *
+   * @param strategy SortStrategy: the strategy, possibly replaced after the scan
+   * @param length int: the length of the array to sort
+   */
+  void start(SortStrategy strategy, int length) {
+    this.strategy = strategy;
+    this.length = length;
+    min = 0;
+    max = 0;
+    holes = 0;
+    occupiedHoles = 0;
+    maxHoleDepth = 0;
+    allocatedBytes = 0;
+    scanNanos = 0;
+    countNanos = 0;
+    writeNanos = 0;
+    event = new SortEvent();
+    event.begin();
+    phaseStart = System.nanoTime();
+  }
+
+  /**
+   * End the scan phase.
+   *
+   * @param min long: the minimum key
+   * @param max long: the maximum key
+   * @param bytes long: the bytes allocated by the phase
+   */
+  void endScan(long min, long max, long bytes) {
+    long now = System.nanoTime();
+    scanNanos = now - phaseStart;
+    this.min = min;
+    this.max = max;
+    allocatedBytes += bytes;
+    phaseStart = now;
+  }
+
+  /**
+   * Set the strategy chosen after the scan.
+   *
+   * @param strategy SortStrategy: the strategy used
+   */
+  void setStrategy(SortStrategy strategy) {
+    this.strategy = strategy;
+  }
+
+  /**
+   * End the count phase and compute the statistics of the pigeonholes.
+   *
+   * @param counts int[]: the counter of every pigeonhole
+   * @param bytes long: the bytes allocated by the phase
+   */
+  void endCount(int[] counts, long bytes) {
+    countNanos = System.nanoTime() - phaseStart;
+    allocatedBytes += bytes;
+    holes = counts.length;
+    for (int count : counts) {
+      if (count > 0) {
+        occupiedHoles++;
+        maxHoleDepth = Math.max(maxHoleDepth, count);
+      }
+    }
+    phaseStart = System.nanoTime();
+  }
+
+  /**
+   * End the write phase and the sort, committing the flight recorder event.
+   *
+   * @param bytes long: the bytes allocated by the phase
+   */
+  void endWrite(long bytes) {
+    writeNanos = System.nanoTime() - phaseStart;
+    allocatedBytes += bytes;
+    event.end();
+    if (event.shouldCommit()) {
+      event.strategy = strategy.name();
+      event.length = length;
+      event.min = min;
+      event.max = max;
+      event.holes = holes;
+      event.occupiedHoles = occupiedHoles;
+      event.maxHoleDepth = maxHoleDepth;
+      event.allocatedBytes = allocatedBytes;
+      event.scanNanos = scanNanos;
+      event.countNanos = countNanos;
+      event.writeNanos = writeNanos;
+      event.commit();
+    }
+    event = null;
+  }
+
+  @Override
+  public String toString() {
+    return "SortMetrics{strategy=" + strategy + ", length=" + length + ", min=" + min
+        + ", max=" + max + ", holes=" + holes + ", occupancy=" + occupancy()
+        + ", maxHoleDepth=" + maxHoleDepth + ", allocatedBytes=" + allocatedBytes
+        + ", scanNanos=" + scanNanos + ", countNanos=" + countNanos
+        + ", writeNanos=" + writeNanos + "}";
+  }
+}
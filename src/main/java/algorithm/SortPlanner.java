@@ -0,0 +1,100 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Abstract class that chooses how to sort an array from its length, its range of values and the
+ * available heap.
+ * <p>
+ * The cost of pigeonhole sort is estimated as three passes over the elements plus one pass over
+ * the pigeonholes, the cost of radix sort as two passes over the elements for every 8 bit digit
+ * of the range and the cost of a comparison sort as n log2(n) comparisons. The cheapest strategy
+ * whose memory fits in a fraction of the free heap is chosen, comparison sort being the fallback.
+ */
+public abstract class SortPlanner {
+
+  /**
+   * Bytes used by the counter of a single pigeonhole.
+   */
+  static final int BYTES_PER_HOLE = Integer.BYTES;
+
+  /**
+   * Bytes of the temporary copy of an element used by radix sort. It's the size of a long, the
+   * widest supported element.
+   */
+  private static final int BYTES_PER_ELEMENT = Long.BYTES;
+
+  /**
+   * Fraction of the available heap that the counters are allowed to use.
+   */
+  private static final double HEAP_FRACTION = 0.5;
+
+  /**
+   * Choose the strategy for sorting an array.
+   *
+   * @param length int: the number of elements to sort
+   * @param min long: the minimum value of the array
+   * @param max long: the maximum value of the array
+   * @return SortStrategy: the cheapest strategy that fits in memory
+   */
+  public static SortStrategy choose(int length, long min, long max) {
+    long range = max - min;
+    double memory = availableHeap() * HEAP_FRACTION;
+    SortStrategy strategy = SortStrategy.COMPARISON;
+    double cost = length * log2(length);
+    //the subtraction overflows to a negative number when the range is wider than a long
+    if (range >= 0 && range < PigeonholeSort.MAX_HOLES
+        && (range + 1) * BYTES_PER_HOLE <= memory) {
+      double pigeonholeCost = 3.0 * length + range + 1;
+      if (pigeonholeCost <= cost) {
+        strategy = SortStrategy.PIGEONHOLE;
+        cost = pigeonholeCost;
+      }
+    }
+    if ((double) length * BYTES_PER_ELEMENT <= memory) {
+      int rangeBits = Long.SIZE - Long.numberOfLeadingZeros(range);
+      int passes = Math.max(1, (rangeBits + RadixSort.DIGIT_BITS - 1) / RadixSort.DIGIT_BITS);
+      double radixCost = length + passes * (2.0 * length + (1 << RadixSort.DIGIT_BITS));
+      if (radixCost < cost) {
+        strategy = SortStrategy.RADIX;
+      }
+    }
+    return strategy;
+  }
+
+  /**
+   * Get the number of bytes that can still be allocated on the heap, either free or not yet
+   * reserved by the JVM.
+   *
+   * @return long: the available heap in bytes
+   */
+  static long availableHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  /**
+   * Get the base 2 logarithm of a positive number.
+   *
+   * @param value double: the number
+   * @return double: the logarithm, at least 1
+   */
+  private static double log2(double value) {
+    return Math.max(1, Math.log(value) / Math.log(2));
+  }
+}
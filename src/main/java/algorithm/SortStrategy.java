@@ -0,0 +1,57 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+/**
+ * Strategies that can be chosen by {@link SortPlanner} for sorting an array, or by the scan of
+ * {@link PigeonholeSort} when the array is already partially sorted.
+ */
+public enum SortStrategy {
+
+  /**
+   * Direct pigeonhole sort, with one pigeonhole for every value between minimum and maximum.
+   */
+  PIGEONHOLE,
+
+  /**
+   * Least significant digit radix sort, a sequence of pigeonhole sorts on 8 bit digits. Used
+   * when the range of values is wide but the array is long enough to amortize the passes.
+   */
+  RADIX,
+
+  /**
+   * Comparison based sort of the JDK, used when the range of values is too wide compared to the
+   * number of elements or to the available memory.
+   */
+  COMPARISON,
+
+  /**
+   * No sort at all, the scan found the array already sorted.
+   */
+  SORTED,
+
+  /**
+   * Reversal in place of an array that the scan found in descending order.
+   */
+  REVERSE,
+
+  /**
+   * Merge of the few ascending runs found by the scan, used when it costs less than counting.
+   */
+  MERGE
+}
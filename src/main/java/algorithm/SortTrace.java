@@ -0,0 +1,550 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact trace of the events of a pigeonhole sort, recorded by
+ * {@link PigeonholeSort#sortTraced(int[])}.
+ * <p>
+ * The sort has three phases and every event is a step: the scan of every element for minimum and
+ * maximum, the placement of every element in its pigeonhole and the write back of every non
+ * empty pigeonhole to the array. Events have fixed width, so every step is found in constant
+ * time. A scan event is the value read, a placement event is the depth of the element in its
+ * pigeonhole, since the pigeonhole comes from the value, and a write back event is the
+ * pigeonhole with the position of its first element. The position of every element at any step
+ * follows in closed form from its depth and the write back events, so seeking never replays
+ * events and no intermediate state is stored. A trace takes 8 bytes per element plus 8 bytes per
+ * non empty pigeonhole.
+ * <p>
+ * Saved traces start with a 24 bytes header, the magic number "PHST", the version, the number
+ * of elements, minimum, maximum and number of non empty pigeonholes, followed by the events.
+ * Every number is a little endian int.
+ */
+public final class SortTrace {
+
+  /**
+   * Magic number at the start of a saved trace, the ASCII string "PHST" read as a little endian
+   * int.
+   */
+  static final int MAGIC = 0x54534850;
+
+  /**
+   * Version of the format of saved traces.
+   */
+  private static final int VERSION = 2;
+
+  /**
+   * Number of ints of the header of a saved trace.
+   */
+  private static final int HEADER_INTS = 6;
+
+  /**
+   * Number of bytes written or read at a time.
+   */
+  private static final int CHUNK_BYTES = 1 << 16;
+
+  /**
+   * Phases of the sort.
+   */
+  public enum Phase {
+    /**
+     * Scan of the array for minimum and maximum.
+     */
+    SCAN,
+    /**
+     * Placement of every element in its pigeonhole.
+     */
+    PLACE,
+    /**
+     * Write back of every non empty pigeonhole to the array.
+     */
+    WRITE_BACK
+  }
+
+  /**
+   * Value read by every scan event, the array before sorting.
+   */
+  private final int[] values;
+
+  /**
+   * Depth of every element in its pigeonhole, starting from 1, recorded by placement events.
+   */
+  private final int[] depths;
+
+  /**
+   * Pigeonhole of every write back event.
+   */
+  private final int[] writtenHoles;
+
+  /**
+   * Position in the sorted array of the first element of every write back event.
+   */
+  private final int[] writtenPositions;
+
+  /**
+   * Minimum value, 0 for an empty array.
+   */
+  private final int min;
+
+  /**
+   * Maximum value, 0 for an empty array.
+   */
+  private final int max;
+
+  /**
+   * Create a new trace.
+   *
+   * @param values int[]: the values read by the scan events
+   * @param depths int[]: the depths recorded by the placement events
+   * @param writtenHoles int[]: the pigeonholes of the write back events
+   * @param writtenPositions int[]: the positions of the write back events
+   * @param min int: the minimum value
+   * @param max int: the maximum value
+   */
+  private SortTrace(int[] values, int[] depths, int[] writtenHoles, int[] writtenPositions,
+      int min, int max) {
+    this.values = values;
+    this.depths = depths;
+    this.writtenHoles = writtenHoles;
+    this.writtenPositions = writtenPositions;
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Get the number of elements of the sorted array.
+   *
+   * @return int: the number of elements
+   */
+  public int length() {
+    return values.length;
+  }
+
+  /**
+   * Get the minimum value of the array.
+   *
+   * @return int: the minimum, 0 for an empty array
+   */
+  public int min() {
+    return min;
+  }
+
+  /**
+   * Get the maximum value of the array.
+   *
+   * @return int: the maximum, 0 for an empty array
+   */
+  public int max() {
+    return max;
+  }
+
+  /**
+   * Get the number of non empty pigeonholes, one for every write back event.
+   *
+   * @return int: the number of non empty pigeonholes
+   */
+  public int occupiedHoles() {
+    return writtenHoles.length;
+  }
+
+  /**
+   * Get the total number of steps, one for every event.
+   *
+   * @return long: the number of steps
+   */
+  public long steps() {
+    return 2L * values.length + writtenHoles.length;
+  }
+
+  /**
+   * Get the phase of a step.
+   *
+   * @param step long: the step
+   * @return Phase: the phase of the sort
+   * @throws IndexOutOfBoundsException if the step is negative or not less than the steps
+   */
+  public Phase phase(long step) {
+    if (step < 0 || step >= steps()) {
+      throw new IndexOutOfBoundsException("Step " + step + " out of " + steps());
+    }
+    return step < values.length ? Phase.SCAN
+        : step < 2L * values.length ? Phase.PLACE : Phase.WRITE_BACK;
+  }
+
+  /**
+   * Get the value of an element, read by its scan event.
+   *
+   * @param element int: the index of the element in the array before sorting
+   * @return int: the value
+   */
+  public int value(int element) {
+    return values[element];
+  }
+
+  /**
+   * Get the pigeonhole of an element, where its placement event puts it.
+   *
+   * @param element int: the index of the element in the array before sorting
+   * @return int: the pigeonhole, the value minus the minimum
+   */
+  public int hole(int element) {
+    return values[element] - min;
+  }
+
+  /**
+   * Get the depth of an element in its pigeonhole, recorded by its placement event.
+   *
+   * @param element int: the index of the element in the array before sorting
+   * @return int: the number of elements of the pigeonhole up to this one included
+   */
+  public int depth(int element) {
+    return depths[element];
+  }
+
+  /**
+   * Get the pigeonhole of a write back event.
+   *
+   * @param event int: the index of the write back event
+   * @return int: the pigeonhole
+   */
+  public int writtenHole(int event) {
+    return writtenHoles[event];
+  }
+
+  /**
+   * Get the position of the first element written back by an event.
+   *
+   * @param event int: the index of the write back event
+   * @return int: the position in the sorted array
+   */
+  public int writtenPosition(int event) {
+    return writtenPositions[event];
+  }
+
+  /**
+   * Get the number of elements written back by an event.
+   *
+   * @param event int: the index of the write back event
+   * @return int: the number of elements of the pigeonhole
+   */
+  public int writtenCount(int event) {
+    int end = event + 1 < writtenPositions.length ? writtenPositions[event + 1] : values.length;
+    return end - writtenPositions[event];
+  }
+
+  /**
+   * Get the number of bytes taken by the trace, in memory or saved.
+   *
+   * @return long: the size in bytes
+   */
+  public long bytes() {
+    return (long) Integer.BYTES * (HEADER_INTS + 2L * values.length + 2L * writtenHoles.length);
+  }
+
+  /**
+   * Save the trace to a file, replacing it if it already exists.
+   *
+   * @param file Path: the file to write
+   * @throws IOException if the file can't be written
+   */
+  public void writeTo(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(values.length).putInt(min).putInt(max)
+          .putInt(writtenHoles.length);
+      for (int[] section : new int[][]{values, depths, writtenHoles, writtenPositions}) {
+        for (int value : section) {
+          if (!buffer.hasRemaining()) {
+            writeFully(channel, buffer);
+          }
+          buffer.putInt(value);
+        }
+      }
+      writeFully(channel, buffer);
+    }
+  }
+
+  /**
+   * Load a trace saved by {@link #writeTo(Path)}.
+   *
+   * @param file Path: the file to read
+   * @return SortTrace: the trace
+   * @throws IOException if the file can't be read or is not a valid trace
+   */
+  public static SortTrace readFrom(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_INTS * Integer.BYTES) {
+        throw new IOException("Trace file too short: " + file);
+      }
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.flip();
+      int[] header = new int[HEADER_INTS];
+      readFully(channel, buffer, header);
+      int length = header[2];
+      int occupied = header[5];
+      if (header[0] != MAGIC || header[1] != VERSION || length < 0 || occupied < 0
+          || occupied > length
+          || size != Integer.BYTES * (HEADER_INTS + 2L * length + 2L * occupied)) {
+        throw new IOException("Not a valid trace file: " + file);
+      }
+      int[] values = new int[length];
+      int[] depths = new int[length];
+      int[] writtenHoles = new int[occupied];
+      int[] writtenPositions = new int[occupied];
+      for (int[] section : new int[][]{values, depths, writtenHoles, writtenPositions}) {
+        readFully(channel, buffer, section);
+      }
+      if (!isValid(values, depths, writtenHoles, writtenPositions, header[3], header[4])) {
+        throw new IOException("Not a valid trace file: " + file);
+      }
+      return new SortTrace(values, depths, writtenHoles, writtenPositions, header[3],
+          header[4]);
+    }
+  }
+
+  /**
+   * Check that the events of a loaded trace are the ones recorded by a sort, so that every step
+   * of the trace can be replayed.
+   *
+   * @param values int[]: the values of the scan events
+   * @param depths int[]: the depths of the placement events
+   * @param writtenHoles int[]: the pigeonholes of the write back events
+   * @param writtenPositions int[]: the positions of the write back events
+   * @param min int: the minimum value
+   * @param max int: the maximum value
+   * @return boolean: true if the trace is consistent
+   */
+  private static boolean isValid(int[] values, int[] depths, int[] writtenHoles,
+      int[] writtenPositions, int min, int max) {
+    if (values.length == 0) {
+      return min == 0 && max == 0;
+    }
+    if (min > max || (long) max - min >= PigeonholeSort.MAX_HOLES) {
+      return false;
+    }
+    //every write back event follows the previous one, in pigeonhole and position order
+    for (int i = 0; i < writtenHoles.length; i++) {
+      int previousHole = i == 0 ? -1 : writtenHoles[i - 1];
+      int previousPosition = i == 0 ? -1 : writtenPositions[i - 1];
+      if (writtenHoles[i] <= previousHole || writtenHoles[i] > max - min
+          || (i == 0 ? writtenPositions[i] != 0 : writtenPositions[i] <= previousPosition)
+          || writtenPositions[i] >= values.length) {
+        return false;
+      }
+    }
+    //replay scan and placement, the depth of an element is the count of its pigeonhole so far
+    int[] placed = new int[writtenHoles.length];
+    int runningMin = Integer.MAX_VALUE;
+    int runningMax = Integer.MIN_VALUE;
+    for (int i = 0; i < values.length; i++) {
+      runningMin = Math.min(runningMin, values[i]);
+      runningMax = Math.max(runningMax, values[i]);
+      if (values[i] < min || values[i] > max) {
+        return false;
+      }
+      int hole = Arrays.binarySearch(writtenHoles, values[i] - min);
+      if (hole < 0 || depths[i] != ++placed[hole]) {
+        return false;
+      }
+    }
+    if (runningMin != min || runningMax != max) {
+      return false;
+    }
+    //every pigeonhole writes back as many elements as were placed in it
+    for (int i = 0; i < placed.length; i++) {
+      int end = i + 1 < writtenPositions.length ? writtenPositions[i + 1] : values.length;
+      if (placed[i] != end - writtenPositions[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write the content of a buffer to a channel and clear the buffer.
+   *
+   * @param channel FileChannel: the channel to write to
+   * @param buffer ByteBuffer: the buffer to write, in write mode
+   * @throws IOException if the channel can't be written
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Read ints from a channel through a buffer, refilling the buffer when it runs out.
+   *
+   * @param channel FileChannel: the channel to read from
+   * @param buffer ByteBuffer: the buffer to read through, in read mode, holding a whole number of
+   * ints
+   * @param ints int[]: the array to fill
+   * @throws IOException if the channel can't be read or ends too early
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buffer, int[] ints)
+      throws IOException {
+    for (int i = 0; i < ints.length; i++) {
+      if (!buffer.hasRemaining()) {
+        buffer.clear();
+        //the file size is checked, so only whole ints are ever read
+        while (buffer.position() % Integer.BYTES != 0 || buffer.position() == 0) {
+          if (channel.read(buffer) < 0) {
+            throw new IOException("Trace file ended too early");
+          }
+        }
+        buffer.flip();
+      }
+      ints[i] = buffer.getInt();
+    }
+  }
+
+  /**
+   * Recorder of the events of a sort, in order.
+   */
+  static final class Recorder {
+
+    /**
+     * Values of the scan events.
+     */
+    private final int[] values;
+
+    /**
+     * Depths of the placement events.
+     */
+    private final int[] depths;
+
+    /**
+     * Pigeonholes of the write back events.
+     */
+    private int[] writtenHoles = new int[0];
+
+    /**
+     * Positions of the write back events.
+     */
+    private int[] writtenPositions = new int[0];
+
+    /**
+     * Number of scan events recorded.
+     */
+    private int scanned;
+
+    /**
+     * Number of write back events recorded.
+     */
+    private int written;
+
+    /**
+     * Running minimum.
+     */
+    private int min = Integer.MAX_VALUE;
+
+    /**
+     * Running maximum.
+     */
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * Create a new recorder.
+     *
+     * @param length int: the length of the array to sort
+     */
+    Recorder(int length) {
+      values = new int[length];
+      depths = new int[length];
+    }
+
+    /**
+     * Record the scan of the next element.
+     *
+     * @param value int: the value read
+     */
+    void scan(int value) {
+      values[scanned++] = value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+
+    /**
+     * Get the minimum value scanned.
+     *
+     * @return int: the running minimum
+     */
+    int min() {
+      return min;
+    }
+
+    /**
+     * Get the maximum value scanned.
+     *
+     * @return int: the running maximum
+     */
+    int max() {
+      return max;
+    }
+
+    /**
+     * Record the placement of an element in its pigeonhole.
+     *
+     * @param element int: the index of the element
+     * @param depth int: the depth of the element in its pigeonhole
+     */
+    void place(int element, int depth) {
+      depths[element] = depth;
+    }
+
+    /**
+     * Record the write back of a non empty pigeonhole.
+     *
+     * @param hole int: the pigeonhole
+     * @param position int: the position of its first element in the sorted array
+     */
+    void writeBack(int hole, int position) {
+      if (written == writtenHoles.length) {
+        //there's at most a non empty pigeonhole per element
+        int capacity = (int) Math.min(values.length, Math.max(16, 2L * written));
+        writtenHoles = Arrays.copyOf(writtenHoles, capacity);
+        writtenPositions = Arrays.copyOf(writtenPositions, capacity);
+      }
+      writtenHoles[written] = hole;
+      writtenPositions[written++] = position;
+    }
+
+    /**
+     * Get the trace of the events recorded.
+     *
+     * @return SortTrace: the trace
+     */
+    SortTrace finish() {
+      return new SortTrace(values, depths, Arrays.copyOf(writtenHoles, written),
+          Arrays.copyOf(writtenPositions, written), scanned > 0 ? min : 0, scanned > 0 ? max : 0);
+    }
+  }
+}
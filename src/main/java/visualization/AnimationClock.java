@@ -0,0 +1,123 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package visualization;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+/**
+ * Clock of the renderers drawing a {@link SortAnimationModel}.
+ * <p>
+ * The time is measured in steps of the model. While playing, it advances at every pulse of the
+ * JavaFX thread by the time elapsed from the previous pulse, and every step lasts as long as a
+ * transition of the node renderer. The clock plays backwards when the target time is before the
+ * current one. Renderers listen to {@link #timeProperty()} and draw the frame of the new time.
+ */
+public class AnimationClock {
+
+  /**
+   * Timer advancing the time at every pulse while playing.
+   */
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      onFrame(now);
+    }
+  };
+
+  /**
+   * Current time in steps.
+   */
+  private final ReadOnlyDoubleWrapper time = new ReadOnlyDoubleWrapper(this, "time");
+
+  /**
+   * Time where the clock stops playing.
+   */
+  private double targetTime;
+
+  /**
+   * Nanoseconds of the last pulse, 0 before the first pulse.
+   */
+  private long lastFrame;
+
+  /**
+   * Get the current time of the clock.
+   *
+   * @return ReadOnlyDoubleProperty: the time in steps
+   */
+  public ReadOnlyDoubleProperty timeProperty() {
+    return time.getReadOnlyProperty();
+  }
+
+  /**
+   * Get the current time of the clock.
+   *
+   * @return double: the time in steps
+   */
+  public double getTime() {
+    return time.get();
+  }
+
+  /**
+   * Stop playing and move to a time.
+   *
+   * @param time double: the new time in steps
+   */
+  public void reset(double time) {
+    stop();
+    this.time.set(time);
+  }
+
+  /**
+   * Play until a time.
+   *
+   * @param target double: the time where the clock stops, before the current time for playing
+   * backwards
+   */
+  public void playTo(double target) {
+    targetTime = target;
+    lastFrame = 0;
+    timer.start();
+  }
+
+  /**
+   * Stop playing at the current time.
+   */
+  public void stop() {
+    timer.stop();
+  }
+
+  /**
+   * Move the time towards the target by the time elapsed from the last pulse.
+   *
+   * @param now long: the time of the pulse in nanoseconds
+   */
+  private void onFrame(long now) {
+    if (lastFrame > 0) {
+      //every step lasts as long as a transition of the node renderer
+      double stepNanos = MainController.animationsDuration.getValue().toMillis() * 1e6;
+      double elapsed = (now - lastFrame) / Math.max(1, stepNanos);
+      time.set(targetTime > time.get() ? Math.min(targetTime, time.get() + elapsed)
+          : Math.max(targetTime, time.get() - elapsed));
+    }
+    lastFrame = now;
+    if (time.get() == targetTime) {
+      stop();
+    }
+  }
+}
@@ -18,11 +18,10 @@
  */
 package visualization;
 
-import java.io.IOException;
 import javafx.animation.FadeTransition;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.util.Duration;
 
@@ -52,8 +51,7 @@ public class ArrayElementBox extends StackPane implements Cloneable {
   /**
    * Reference to the text at the center of array box
    */
-  @FXML
-  private Text number;
+  private final Text number;
 
   /**
    * Create a new array box.
@@ -70,30 +68,30 @@ public class ArrayElementBox extends StackPane implements Cloneable {
    * @param text String: a string representing that will be show inside the rectangle.
    */
   private ArrayElementBox(String text) {
-    //load fxml representing the object
-    loadFXML();
-    //set the text given to the number
-    this.number.setText(text);
-    //set initial opacity of the element to 0%. The opacity will be increased with a fade in animation.
-    this.setOpacity(0);
+    this(text, Color.BLUE, null, Color.WHITE);
   }
 
   /**
-   * load the fxml representing this {@link ArrayElementBox}.
+   * Create a new box with the given colors. The nodes are built directly instead of being loaded
+   * from an fxml file, so creating thousands of boxes takes only milliseconds.
+   *
+   * @param text String: the text shown inside the rectangle
+   * @param fill Color: the fill of the rectangle
+   * @param stroke Color: the border of the rectangle, null for no border
+   * @param textFill Color: the color of the text
    */
-  protected void loadFXML() {
-    //Create a new FXMLLoader that will load fxml from file
-    FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/arrayElement.fxml"));
-    //set the root element as this object
-    fxmlLoader.setRoot(this);
-    //set the controller as this object
-    fxmlLoader.setController(this);
-    try {
-      //load the fxml from file
-      fxmlLoader.load();
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+  protected ArrayElementBox(String text, Color fill, Color stroke, Color textFill) {
+    //create the square background of the box
+    Rectangle rectangle = new Rectangle(boxSize, boxSize, fill);
+    rectangle.setStroke(stroke);
+    //create the text at the center of the box
+    this.number = new Text(text);
+    this.number.setFill(textFill);
+    getChildren().addAll(rectangle, this.number);
+    //the box doesn't grow with the pane containing it
+    setMaxSize(boxSize, boxSize);
+    //set initial opacity of the element to 0%. The opacity will be increased with a fade in animation.
+    this.setOpacity(0);
   }
 
   /**
@@ -142,6 +140,15 @@ public class ArrayElementBox extends StackPane implements Cloneable {
     return Integer.parseInt(number.getText());
   }
 
+  /**
+   * Change the number shown inside the rectangle, for reusing the box.
+   *
+   * @param number int: the new number
+   */
+  public void setNumber(int number) {
+    this.number.setText(String.valueOf(number));
+  }
+
   /**
    * Clone the array element box.
    *
@@ -0,0 +1,254 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package visualization;
+
+import static visualization.ArrayElementBox.boxSize;
+import static visualization.ArrayElementBox.boxTotalSize;
+
+import java.util.Arrays;
+import java.util.List;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Renderer drawing the sorting animation on a single {@link Canvas}.
+ * <p>
+ * The node renderer of {@link MainController} creates a node for every element, copy and
+ * pigeonhole, so the scene graph grows with the length and the maximum of the array. This canvas
+ * instead draws every frame from a {@link SortAnimationModel}, interpolating the positions at the
+ * time of an {@link AnimationClock}, and the animation is scaled to fit the canvas. Numbers are
+ * drawn only when the boxes are large enough to read them, and boxes that would cover pixels
+ * already painted are skipped, so a frame costs at most a few draw calls per pixel of the canvas.
+ */
+public class CanvasSortRenderer extends Canvas {
+
+  /**
+   * Minimum width in pixels of a box for drawing its number.
+   */
+  private static final double MIN_TEXT_WIDTH = 20;
+
+  /**
+   * Minimum width in pixels of a pigeonhole for drawing it alone. Narrower pigeonholes are drawn
+   * as a single strip.
+   */
+  private static final double MIN_HOLE_WIDTH = 3;
+
+  /**
+   * Color of the elements.
+   */
+  private static final Color ELEMENT_FILL = Color.BLUE;
+
+  /**
+   * Clock giving the time of the frame to draw.
+   */
+  private final AnimationClock clock;
+
+  /**
+   * Model of the animation, null if there's no array.
+   */
+  private SortAnimationModel model;
+
+  /**
+   * Values of the array being read, drawn while there's no model, null if there's no array.
+   */
+  private List<Integer> input;
+
+  /**
+   * Pixels already covered by an opaque box in the current frame, one per pixel of the canvas.
+   */
+  private boolean[] painted = new boolean[0];
+
+  /**
+   * Create a new renderer. The canvas has no size until the container sets it.
+   *
+   * @param clock AnimationClock: the clock giving the time of the frame to draw
+   */
+  public CanvasSortRenderer(AnimationClock clock) {
+    this.clock = clock;
+    //draw a new frame when the time changes or the canvas is resized
+    clock.timeProperty().addListener(observable -> draw());
+    widthProperty().addListener(observable -> draw());
+    heightProperty().addListener(observable -> draw());
+  }
+
+  /**
+   * Show a new array. The time of the clock is not changed.
+   *
+   * @param model SortAnimationModel: the model of the animation, null for an empty canvas
+   */
+  public void setModel(SortAnimationModel model) {
+    this.model = model;
+    input = null;
+    draw();
+  }
+
+  /**
+   * Show an array while it's being read, before the model of its animation is created. Only the
+   * array to sort is drawn.
+   *
+   * @param input List: the values read so far, drawn again at every call
+   */
+  public void setInput(List<Integer> input) {
+    model = null;
+    this.input = input;
+    draw();
+  }
+
+  /**
+   * Draw the animation at the current time.
+   */
+  private void draw() {
+    GraphicsContext graphics = getGraphicsContext2D();
+    graphics.setGlobalAlpha(1);
+    graphics.clearRect(0, 0, getWidth(), getHeight());
+    graphics.setTextAlign(TextAlignment.CENTER);
+    graphics.setTextBaseline(VPos.CENTER);
+    if (model == null && input != null && !input.isEmpty()) {
+      drawInput(graphics);
+      return;
+    }
+    if (model == null || model.getLength() == 0) {
+      return;
+    }
+    double time = clock.getTime();
+    //scale every axis independently so that the whole animation fits the canvas
+    int columns = Math.max(model.getLength(), model.getColumns());
+    double unitX = Math.min(boxTotalSize, getWidth() / columns);
+    double unitY = Math.min(boxTotalSize, getHeight() / model.getRows());
+    double width = Math.max(1, unitX * boxSize / boxTotalSize);
+    double height = Math.max(1, unitY * boxSize / boxTotalSize);
+    drawHoles(graphics, time, unitX, unitY, width, height);
+    clearPainted();
+    //the array to sort, fading out while the sorted elements move back
+    for (int i = 0; i < model.getLength(); i++) {
+      drawElement(graphics, model.getValue(i), i * unitX, 0, width, height,
+          model.getOriginalOpacity(i, time));
+    }
+    //the copies moving to the pigeonholes and back
+    for (int i = 0; i < model.getLength(); i++) {
+      if (model.isMoved(i, time)) {
+        drawElement(graphics, model.getValue(i), model.getX(i, time) * unitX,
+            model.getY(i, time) * unitY, width, height, 1);
+      }
+    }
+    graphics.setGlobalAlpha(1);
+  }
+
+  /**
+   * Draw the array being read, scaled like the array to sort of the animation.
+   *
+   * @param graphics GraphicsContext: the context of the canvas
+   */
+  private void drawInput(GraphicsContext graphics) {
+    double unitX = Math.min(boxTotalSize, getWidth() / input.size());
+    double unitY = Math.min(boxTotalSize, getHeight());
+    double width = Math.max(1, unitX * boxSize / boxTotalSize);
+    double height = Math.max(1, unitY * boxSize / boxTotalSize);
+    clearPainted();
+    for (int i = 0; i < input.size(); i++) {
+      drawElement(graphics, input.get(i), i * unitX, 0, width, height, 1);
+    }
+    graphics.setGlobalAlpha(1);
+  }
+
+  /**
+   * Draw the pigeonholes, one by one when they are wide enough or as a single strip.
+   *
+   * @param graphics GraphicsContext: the context of the canvas
+   * @param time double: the time of the frame in steps
+   * @param unitX double: the width of a column in pixels
+   * @param unitY double: the height of a row in pixels
+   * @param width double: the width of a box in pixels
+   * @param height double: the height of a box in pixels
+   */
+  private void drawHoles(GraphicsContext graphics, double time, double unitX, double unitY,
+      double width, double height) {
+    double opacity = model.getHolesOpacity(time);
+    if (opacity <= 0) {
+      return;
+    }
+    graphics.setGlobalAlpha(opacity);
+    graphics.setStroke(Color.BLACK);
+    double y = SortAnimationModel.HOLES_Y * unitY;
+    if (width < MIN_HOLE_WIDTH) {
+      graphics.strokeRect(0, y, model.getColumns() * unitX, height);
+      return;
+    }
+    graphics.setFill(Color.BLACK);
+    for (int column = 0; column < model.getColumns(); column++) {
+      graphics.strokeRect(column * unitX, y, width, height);
+      if (width >= MIN_TEXT_WIDTH) {
+        graphics.fillText(String.valueOf(model.getHoleValue(column)), column * unitX + width / 2,
+            y + height / 2);
+      }
+    }
+  }
+
+  /**
+   * Draw the box of an element, unless it's opaque and it would cover only pixels already
+   * painted.
+   *
+   * @param graphics GraphicsContext: the context of the canvas
+   * @param number int: the value of the element
+   * @param x double: the left side of the box in pixels
+   * @param y double: the top side of the box in pixels
+   * @param width double: the width of the box in pixels
+   * @param height double: the height of the box in pixels
+   * @param opacity double: the opacity of the box
+   */
+  private void drawElement(GraphicsContext graphics, int number, double x, double y,
+      double width, double height, double opacity) {
+    if (opacity <= 0) {
+      return;
+    }
+    if (opacity >= 1) {
+      int pixelX = (int) x;
+      int pixelY = (int) y;
+      int canvasWidth = (int) getWidth();
+      if (pixelX < canvasWidth && pixelY < (int) getHeight()) {
+        //boxes narrower than a pixel all land on few pixels, draw only the first one
+        int pixel = pixelY * canvasWidth + pixelX;
+        if (painted[pixel]) {
+          return;
+        }
+        painted[pixel] = true;
+      }
+    }
+    graphics.setGlobalAlpha(opacity);
+    graphics.setFill(ELEMENT_FILL);
+    graphics.fillRect(x, y, width, height);
+    if (width >= MIN_TEXT_WIDTH) {
+      graphics.setFill(Color.WHITE);
+      graphics.fillText(String.valueOf(number), x + width / 2, y + height / 2);
+    }
+  }
+
+  /**
+   * Mark every pixel of the canvas as not painted.
+   */
+  private void clearPainted() {
+    int pixels = (int) getWidth() * (int) getHeight();
+    if (painted.length < pixels) {
+      painted = new boolean[pixels];
+    } else {
+      Arrays.fill(painted, 0, pixels, false);
+    }
+  }
+}
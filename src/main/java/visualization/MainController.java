@@ -18,11 +18,11 @@ package visualization;
 
 import static visualization.ArrayElementBox.boxTotalSize;
 
-import java.io.BufferedReader;
+import algorithm.IntFiles;
+import algorithm.PigeonholeSort;
+import algorithm.SortTrace;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -36,15 +36,22 @@ import javafx.animation.ParallelTransition;
 import javafx.animation.SequentialTransition;
 import javafx.animation.Transition;
 import javafx.animation.TranslateTransition;
+import javafx.beans.InvalidationListener;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Slider;
 import javafx.scene.control.TextInputDialog;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
@@ -69,21 +76,75 @@ public class MainController {
   private StackPane animationPane;
 
   /**
-   * Animation speed slider.
+   * Scroll pane containing the animation pane.
    */
   @FXML
-  private Slider animationSpeedSlider;
+  private ScrollPane animationScrollPane;
+
+  /**
+   * Combo box choosing the renderer of the next array.
+   */
+  @FXML
+  private ComboBox<Renderer> rendererComboBox;
+
+  /**
+   * Clock of the renderers drawing a {@link SortAnimationModel}.
+   */
+  private final AnimationClock animationClock = new AnimationClock();
+
+  /**
+   * Renderer drawing the whole animation on a canvas.
+   */
+  private final CanvasSortRenderer canvasRenderer = new CanvasSortRenderer(animationClock);
+
+  /**
+   * Renderer creating nodes only for the visible part of the animation.
+   */
+  private final VirtualSortView virtualView = new VirtualSortView(animationClock);
 
   /**
-   * Maximum value of the generated random array.
+   * Renderer of the current array.
    */
-  private int max;
+  private Renderer renderer = Renderer.NODES;
+
+  /**
+   * Model of the animation of the current array, used by every renderer except the node one.
+   */
+  private SortAnimationModel animationModel;
+
+  /**
+   * Trace of the sort of the current array, recorded once when the array is read or loaded with
+   * it, null before. Every renderer plays the sort from it.
+   */
+  private SortTrace sortTrace;
+
+  /**
+   * Values of the array to sort.
+   */
+  private ArrayList<Integer> arrayValues;
+
+  /**
+   * Animation speed slider.
+   */
+  @FXML
+  private Slider animationSpeedSlider;
 
   /**
    * list of ArrayElementBox representing the array to sort.
    */
   private ArrayList<ArrayElementBox> arrayBoxesToSort;
 
+  /**
+   * Layer of the node renderer containing the boxes of the array to sort that are not replaced
+   * yet by the sorted elements.
+   */
+  private Pane arrayLayer;
+
+  /**
+   * Layer of the node renderer containing the pigeonholes shown and not moved back yet.
+   */
+  private Pane holesLayer;
+
   /**
    * Flag for know if the user requested a stepByStep animation.
    */
@@ -99,6 +160,22 @@ public class MainController {
    */
   private Queue<Transition> transitionQueue;
 
+  /**
+   * Steps of the sorting phase of the node renderer, null until the sorting is prepared.
+   */
+  private SortTimeline sortTimeline;
+
+  /**
+   * Flag for know if the node renderer is waiting for the next window of steps of the sorting
+   * timeline, so that the next step plays as soon as it arrives.
+   */
+  private boolean waitingForSteps;
+
+  /**
+   * Pigeonholes already shown by the node renderer, by value.
+   */
+  private Map<Integer, PigeonHole> pigeonHoles;
+
   /**
    * Button for step-by-step animation
    */
@@ -111,6 +188,29 @@ public class MainController {
   @FXML
   private Button sortButton;
 
+  /**
+   * Slider showing the current step of the animation and seeking to any step when dragged.
+   */
+  @FXML
+  private Slider seekSlider;
+
+  /**
+   * Button for playing the animation backwards
+   */
+  @FXML
+  private Button reverseButton;
+
+  /**
+   * Button for saving the trace of the sort
+   */
+  @FXML
+  private Button saveTraceButton;
+
+  /**
+   * Flag for know if the seek slider is following the clock, so that it doesn't seek.
+   */
+  private boolean seekSliderUpdating;
+
   /**
    * Get the desired maximum possible value of the generated array to sort from a dialog.
    *
@@ -169,13 +269,21 @@ public class MainController {
   private void onStepButtonClick() {
     //set that the user requested a step by step animation
     stepByStep = true;
+    //the other renderers play the steps of their model
+    if (renderer != Renderer.NODES) {
+      if (animationModel != null) {
+        animationClock.playTo(
+            Math.min(animationModel.getSteps(), Math.floor(animationClock.getTime()) + 1));
+      }
+      return;
+    }
     //if the sorting animation is not yet prepared
     if (!sortingAnimationPrepared) {
       //prepare the sorting animation
       prepareSortingAnimation();
     }
     //if the queue of animation for the sorting is not empty
-    if (!transitionQueue.isEmpty()) {
+    if (hasNextAnimation()) {
       //play the animation in the head of the queue and remove it
       playNextAnimation();
     }
@@ -186,8 +294,20 @@ public class MainController {
     // at animation runtime. Also there isn't a unbind method on Transition
     // because ParallelTransition and SequentialTransition doesn't support it.
     // It's repeated on every other Transition subclasses.
-    if (!transitionQueue.isEmpty()) {
-      Transition transition = transitionQueue.remove();
+    if (hasNextAnimation()) {
+      //the animations of the input come first, then the steps of the sorting timeline
+      Transition transition;
+      if (!transitionQueue.isEmpty()) {
+        transition = transitionQueue.remove();
+      } else {
+        SortTimeline.Step step = sortTimeline.poll();
+        if (step == null) {
+          //the next window is still being computed, it plays when it arrives
+          waitingForSteps = true;
+          return;
+        }
+        transition = createSortingTransition(step);
+      }
       if (transition instanceof ParallelTransition) {
         ParallelTransition parallelTransition = (ParallelTransition) transition;
         parallelTransition.getChildren().forEach(this::unbindAnimation);
@@ -217,10 +337,10 @@ public class MainController {
   }
 
   private void addNumberToArray(int number, int position) {
-    //if the new number is greater than the max counter
-    if (number > max) {
-      //update the max counter
-      max = number;
+    arrayValues.add(number);
+    //the other renderers draw the values without creating a node per value
+    if (renderer != Renderer.NODES) {
+      return;
     }
     //create a new ArrayElementBox showing the generated random number
     ArrayElementBox arrayElementBox = new ArrayElementBox(number);
@@ -231,22 +351,136 @@ public class MainController {
     //add the fade transition to the total sequential transition
     transitionQueue.add(arrayElementBox.getCreationFadeTransition(stepTransitionEventHandler));
     //add the array box to the scene
-    animationPane.getChildren().add(arrayElementBox);
+    arrayLayer.getChildren().add(arrayElementBox);
   }
 
   private void initializeAnimationArea() {
     //clear animation pane from every possible past animations
     animationPane.getChildren().clear();
+    animationClock.reset(0);
+    animationModel = null;
+    sortTrace = null;
+    canvasRenderer.setModel(null);
+    virtualView.setModel(null);
+    //seeking needs a model, that is created with the array
+    seekSlider.setMax(0);
+    seekSlider.setDisable(true);
+    reverseButton.setDisable(true);
+    saveTraceButton.setDisable(true);
+    //the renderer chosen by the user is used until the next array
+    renderer = Optional.ofNullable(rendererComboBox.getValue()).orElse(Renderer.NODES);
+    if (renderer != Renderer.NODES) {
+      //the canvas fits the visible area and the virtual view sizes itself
+      animationPane.setPrefWidth(Region.USE_COMPUTED_SIZE);
+    }
+    if (renderer == Renderer.CANVAS) {
+      resizeCanvas();
+      animationPane.getChildren().add(canvasRenderer);
+    } else if (renderer == Renderer.VIRTUALIZED) {
+      animationPane.getChildren().add(virtualView);
+    } else {
+      //the boxes of the array stay under the pigeonholes and the moving elements
+      arrayLayer = new Pane();
+      holesLayer = new Pane();
+      animationPane.getChildren().addAll(arrayLayer, holesLayer);
+    }
     //create a new list of stackPanes representing the array to sort
     arrayBoxesToSort = new ArrayList<>();
+    arrayValues = new ArrayList<>();
     transitionQueue.clear();
-    max = 0;
+    if (sortTimeline != null) {
+      sortTimeline.cancel();
+    }
+    sortTimeline = null;
+    waitingForSteps = false;
     //set the step by step mode flag to false
     stepByStep = false;
     //set the sorting animation as not prepared
     sortingAnimationPrepared = false;
   }
 
+  /**
+   * Resize the canvas to the visible area of the animation pane.
+   */
+  private void resizeCanvas() {
+    //remove the padding of the animation pane from the visible area
+    double width = animationScrollPane.getViewportBounds().getWidth()
+        - animationPane.getPadding().getLeft() - animationPane.getPadding().getRight();
+    double height = animationScrollPane.getViewportBounds().getHeight()
+        - animationPane.getPadding().getTop() - animationPane.getPadding().getBottom();
+    canvasRenderer.setWidth(Math.max(0, width));
+    canvasRenderer.setHeight(Math.max(0, height));
+  }
+
+  /**
+   * Update the area of the virtual view visible through the scroll pane.
+   */
+  private void updateVisibleArea() {
+    Bounds viewport = animationScrollPane.getViewportBounds();
+    Bounds content = animationPane.getLayoutBounds();
+    //scroll offsets from the position of the scroll bars, without the padding of the pane
+    double x = animationScrollPane.getHvalue()
+        * Math.max(0, content.getWidth() - viewport.getWidth())
+        - animationPane.getPadding().getLeft();
+    double y = animationScrollPane.getVvalue()
+        * Math.max(0, content.getHeight() - viewport.getHeight())
+        - animationPane.getPadding().getTop();
+    virtualView.setVisibleArea(
+        new BoundingBox(x, y, viewport.getWidth(), viewport.getHeight()));
+  }
+
+  /**
+   * Record the trace of the sort of the array just read, unless it was loaded with the array.
+   * This is the only sort of the array, replaying and seeking use the trace.
+   */
+  private void recordTrace() {
+    if (sortTrace == null) {
+      sortTrace = PigeonholeSort.sortTraced(
+          arrayValues.stream().mapToInt(Integer::intValue).toArray());
+    }
+    saveTraceButton.setDisable(false);
+  }
+
+  /**
+   * Show the array while it's being read. The node renderer plays the next animation on the
+   * animation queue, the other renderers draw only the array, since the model of the animation
+   * sorts the whole array and is created by {@link #showArray()} once it's read.
+   */
+  private void showInput() {
+    if (renderer == Renderer.NODES) {
+      playNextAnimation();
+    } else if (renderer == Renderer.CANVAS) {
+      canvasRenderer.setInput(arrayValues);
+    } else {
+      virtualView.setInput(arrayValues);
+      updateVisibleArea();
+    }
+  }
+
+  /**
+   * Show the array just read. The node renderer plays the first animation on the animation
+   * queue, the other renderers draw it at once and can seek to any step.
+   */
+  private void showArray() {
+    recordTrace();
+    if (renderer == Renderer.NODES) {
+      playNextAnimation();
+      return;
+    }
+    //the virtual view gives a column only to the non empty pigeonholes
+    boolean collapseEmptyHoles = renderer == Renderer.VIRTUALIZED;
+    animationModel = new SortAnimationModel(sortTrace, collapseEmptyHoles);
+    seekSlider.setMax(animationModel.getSteps());
+    seekSlider.setDisable(false);
+    reverseButton.setDisable(false);
+    if (renderer == Renderer.CANVAS) {
+      canvasRenderer.setModel(animationModel);
+    } else {
+      virtualView.setModel(animationModel);
+      updateVisibleArea();
+    }
+  }
+
   /**
    * Handler of generate button click.
    * Create and play an animation for showing the generation of a random array.
@@ -259,11 +493,11 @@ public class MainController {
     int randomMaxValue = getMaxRandomValue();
     initializeAnimationArea();
     //increase the animation pane width for containing the array
-    animationPane.setPrefWidth(length * (boxTotalSize + 1));
+    if (renderer == Renderer.NODES) {
+      animationPane.setPrefWidth(length * (boxTotalSize + 1));
+    }
     //create a new random number generator
     Random generator = new Random();
-    //initialize maximum value counter to 0
-    max = 0;
     int i;
     //for a number of times equal to length value
     for (i = 0; i < length; i++) {
@@ -276,8 +510,8 @@ public class MainController {
       stepButton.setDisable(false);
       sortButton.requestFocus();
     }
-    //play the first animation on the animation queue
-    playNextAnimation();
+    //show the generated array
+    showArray();
   }
 
   @FXML
@@ -297,8 +531,8 @@ public class MainController {
           if (value>=0) {
             addNumberToArray(value, position);
             position++;
-            //play the first animation on the animation queue
-            playNextAnimation();
+            //show the array with the new value
+            showInput();
           } else {
             showErrorMessage("Please insert a positive number");
           }
@@ -312,6 +546,12 @@ public class MainController {
           sortButton.setDisable(false);
           stepButton.setDisable(false);
           sortButton.requestFocus();
+          //the node renderer already played the animations of the input
+          if (renderer != Renderer.NODES) {
+            showArray();
+          } else {
+            recordTrace();
+          }
         }
       }
     } while (!userTerminatedInput);
@@ -324,141 +564,237 @@ public class MainController {
     initializeAnimationArea();
     FileChooser fileChooser = new FileChooser();
     fileChooser.setTitle("Open text file");
-    fileChooser.getExtensionFilters().add(new ExtensionFilter("Text Files", "*.txt"));
+    fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+        new ExtensionFilter("Binary int files", "*.bin"));
     Node source = (Node) ae.getSource();
     Window theStage = source.getScene().getWindow();
     File selectedFile = fileChooser.showOpenDialog(theStage);
     if (selectedFile != null) {
-      Charset charset = Charset.defaultCharset();
-      String line = null;
-      try (BufferedReader reader = Files.newBufferedReader(selectedFile.toPath(), charset)) {
-        int numberOfElementsRead = 0;
-        while ((line = reader.readLine()) != null) {
-          int number = Integer.parseInt(line);
-          if (number>=0) {
-            addNumberToArray(number, numberOfElementsRead);
-            numberOfElementsRead++;
-          } else throw new NumberFormatException();
+      try {
+        //binary files are memory mapped, text files are parsed without creating a string per value
+        int[] numbers = selectedFile.getName().endsWith(".bin")
+            ? IntFiles.readBinary(selectedFile.toPath())
+            : IntFiles.readText(selectedFile.toPath());
+        for (int number : numbers) {
+          if (number < 0) {
+            throw new NumberFormatException(number + " is negative");
+          }
+        }
+        for (int i = 0; i < numbers.length; i++) {
+          addNumberToArray(numbers[i], i);
         }
-        if (numberOfElementsRead > 0) {
+        if (numbers.length > 0) {
           sortButton.setDisable(false);
           stepButton.setDisable(false);
           sortButton.requestFocus();
-          //play the first animation on the animation queue
-          playNextAnimation();
+          //show the array read from the file
+          showArray();
         }
       } catch (IOException x) {
         showErrorMessage("Error opening the file");
       } catch (NumberFormatException x) {
         initializeAnimationArea();
-        showErrorMessage("Cannot parse " + line + " to a positive number.");
+        showErrorMessage("Cannot parse the file to positive numbers: " + x.getMessage());
       }
     }
   }
 
   /**
-   * Create the three main animation for the sorting phase.
+   * Handler of replay trace button click.
+   * Load a saved trace and show its array, without sorting it again.
+   *
+   * @param ae ActionEvent: the click event
+   */
+  @FXML
+  private void onLoadTraceButtonClick(ActionEvent ae) {
+    initializeAnimationArea();
+    FileChooser fileChooser = new FileChooser();
+    fileChooser.setTitle("Open sort trace");
+    fileChooser.getExtensionFilters().add(new ExtensionFilter("Sort traces", "*.trace"));
+    Window theStage = ((Node) ae.getSource()).getScene().getWindow();
+    File selectedFile = fileChooser.showOpenDialog(theStage);
+    if (selectedFile != null) {
+      try {
+        SortTrace trace = SortTrace.readFrom(selectedFile.toPath());
+        if (trace.length() > 0 && trace.min() < 0) {
+          showErrorMessage("The trace contains negative numbers: " + trace.min());
+          return;
+        }
+        for (int i = 0; i < trace.length(); i++) {
+          addNumberToArray(trace.value(i), i);
+        }
+        sortTrace = trace;
+        if (trace.length() > 0) {
+          sortButton.setDisable(false);
+          stepButton.setDisable(false);
+          sortButton.requestFocus();
+          //show the array of the trace, without sorting it again
+          showArray();
+        }
+      } catch (IOException | IllegalArgumentException x) {
+        showErrorMessage("Error opening the trace: " + x.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Handler of save trace button click.
+   * Save the trace of the sort of the current array.
+   *
+   * @param ae ActionEvent: the click event
+   */
+  @FXML
+  private void onSaveTraceButtonClick(ActionEvent ae) {
+    FileChooser fileChooser = new FileChooser();
+    fileChooser.setTitle("Save sort trace");
+    fileChooser.getExtensionFilters().add(new ExtensionFilter("Sort traces", "*.trace"));
+    Window theStage = ((Node) ae.getSource()).getScene().getWindow();
+    File selectedFile = fileChooser.showSaveDialog(theStage);
+    if (selectedFile != null) {
+      try {
+        sortTrace.writeTo(selectedFile.toPath());
+      } catch (IOException x) {
+        showErrorMessage("Error saving the trace: " + x.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Handler of reverse button click.
+   * Play the animation backwards to the beginning.
+   */
+  @FXML
+  private void onReverseButtonClick() {
+    if (animationModel != null) {
+      animationClock.playTo(0);
+    }
+  }
+
+  /**
+   * Prepare the steps of the sorting phase from the trace of the sort. Steps are computed in
+   * background, nodes and transitions are created only when the step plays, by
+   * {@link #createSortingTransition(SortTimeline.Step)}.
    */
   private void prepareSortingAnimation() {
+    //only the non empty pigeonholes get a column
+    int columns = sortTrace.occupiedHoles();
     //set a new width for the animation pane only if the new width is grater than the previous
-    if ((max + 1) * boxTotalSize > animationPane.getPrefWidth()) {
-      //set a new width equal to the maximum value in the array multiplied by the a box size
-      animationPane.setPrefWidth((max + 1) * boxTotalSize);
+    if (columns * boxTotalSize > animationPane.getPrefWidth()) {
+      animationPane.setPrefWidth(columns * boxTotalSize);
     }
-    //create a new hash map for representing pigeonholes. The keys are Integer and they will be from 0 to max.
-    Map<Integer, PigeonHole> pigeonHoles = new HashMap<>(max);
-    //create animations for pigeonholes appearance
-    initializePigeonHoles(pigeonHoles);
-    //creates animations for moving array elements from the array to sort to the pigeonholes
-    createFillPigeonholesAnimation(pigeonHoles);
-    //create animations for moving back array elements from the pigeonholes to the array to sort, in a sorted way.
-    createLastAnimationPhase(pigeonHoles);
+    //create a new hash map for the pigeonholes shown and not moved back yet, by value
+    pigeonHoles = new HashMap<>();
+    waitingForSteps = false;
+    sortTimeline = SortTimeline.start(sortTrace, this::onStepsArrived);
     //set the flag for know if the sorting animation has been prepared to true
     sortingAnimationPrepared = true;
   }
 
   /**
-   * Create pigeonholes with fade animation.
-   *
-   * @param tmpArrayVisualization Map<Integer, PigeonHole>: map between array to sort values and
-   * elements with those values
-   */
-  private void initializePigeonHoles(
-      Map<Integer, PigeonHole> tmpArrayVisualization) {
-    //for a number of times equal to the maximum value of the array to sort
-    for (int i = 0; i <= max; i++) {
-      //create empty rectangle + structure for handling array elements
-      PigeonHole pigeonHole = new PigeonHole(i);
-      //add the element to the hash map
-      tmpArrayVisualization.put(i, pigeonHole);
-      //add the fade animation to the total sort transition
-      //pass as parameter also an event handler for step-by-step animation
-      transitionQueue
-          .add(pigeonHole.getCreationFadeTransition(stepTransitionEventHandler));
-      //add the element to the animation pane
-      animationPane.getChildren().add(pigeonHole);
+   * Play the next step if the node renderer was waiting for the window that just arrived.
+   */
+  private void onStepsArrived() {
+    if (waitingForSteps) {
+      waitingForSteps = false;
+      playNextAnimation();
     }
   }
 
   /**
-   * Creates the animation for translating each array box from the array to sort to the tmp array.
+   * Create the nodes and the transition of a step of the sorting phase.
    *
-   * @param tmpArrayVisualization Map<Integer, PigeonHole>: map between array to sort values and
-   * elements with those values
-   */
-  private void createFillPigeonholesAnimation(
-      Map<Integer, PigeonHole> tmpArrayVisualization) {
-    //for each element of the array to sort
-    for (ArrayElementBox arrayToSortElement : arrayBoxesToSort) {
-      //get the element value
-      Integer number = arrayToSortElement.getNumber();
-      //clone element
-      ArrayElementBox clonedElement = arrayToSortElement.clone();
-      //get the PigeonHole from the map.
-      PigeonHole pigeonHole = tmpArrayVisualization.get(number);
-      //add a the cloned element to the PigeonHole list. save the TranslateTransition generated.
-      //pass as parameter also an event handler for step-by-step animation
-      TranslateTransition translateTransition = pigeonHole
-          .add(clonedElement, stepTransitionEventHandler);
-      //add the translate transition to the total sort transition
-      transitionQueue.add(translateTransition);
-      //add the cloned element to the scene
-      animationPane.getChildren().add(clonedElement);
+   * @param step SortTimeline.Step: the step to play
+   * @return Transition: the transition of the step
+   */
+  private Transition createSortingTransition(SortTimeline.Step step) {
+    switch (step.getType()) {
+      case SHOW_HOLE:
+        return createPigeonHole(step.getHole(), step.getIndex());
+      case FILL_HOLE:
+        return createFillPigeonholeAnimation(step.getHole(), step.getIndex());
+      default:
+        return createMoveBackAnimation(step.getHole(), step.getIndex());
     }
   }
 
   /**
-   * Create animation for the last animation phase where elements are moved from the pigeonholes
-   * to the initial array in a sorted order.
+   * Create a pigeonhole with fade animation.
+   *
+   * @param number int: the value of the pigeonhole
+   * @param column int: the column of the pigeonhole among the non empty ones
+   * @return Transition: the fade transition of the pigeonhole
+   */
+  private Transition createPigeonHole(int number, int column) {
+    //create empty rectangle + structure for handling array elements
+    PigeonHole pigeonHole = new PigeonHole(number);
+    pigeonHole.setTranslateX(column * boxTotalSize);
+    //add the element to the hash map
+    pigeonHoles.put(number, pigeonHole);
+    //add the element to the layer of the pigeonholes
+    holesLayer.getChildren().add(pigeonHole);
+    //pass as parameter also an event handler for step-by-step animation
+    return pigeonHole.getCreationFadeTransition(stepTransitionEventHandler);
+  }
+
+  /**
+   * Creates the animation for translating an array box from the array to sort to its pigeonhole.
+   *
+   * @param number int: the value of the element
+   * @param position int: the position of the element in the array to sort
+   * @return Transition: the translate transition of the cloned element
+   */
+  private Transition createFillPigeonholeAnimation(int number, int position) {
+    //clone element
+    ArrayElementBox clonedElement = arrayBoxesToSort.get(position).clone();
+    //get the PigeonHole from the map.
+    PigeonHole pigeonHole = pigeonHoles.get(number);
+    //add the cloned element to the scene
+    animationPane.getChildren().add(clonedElement);
+    //add a the cloned element to the PigeonHole list.
+    //pass as parameter also an event handler for step-by-step animation
+    return pigeonHole.add(clonedElement, stepTransitionEventHandler);
+  }
+
+  /**
+   * Create the animation moving the elements of a pigeonhole back to the array to sort.
    *
-   * @param tmpArrayVisualization Map<Integer, PigeonHole>: map between array to sort values and
-   * elements with those values
-   */
-  private void createLastAnimationPhase(
-      Map<Integer, PigeonHole> tmpArrayVisualization) {
-    //declare a counter for keep count of elements of the array to sort already sorted
-    int arrayOffset = 0;
-    //for pigeonhole in the pigeonholes
-    for (PigeonHole pigeonHole : tmpArrayVisualization.values()) {
-      //get the number of elements in the list of the pigeonholes element
-      int listLength = pigeonHole.getListSize();
-      //if the list in not empty (this if is for performance reason)
-      if (listLength > 0) {
-        //declare a parallel transition
-        ParallelTransition parallelTransition;
-        //parallel transition (fade+translate) generated from moving back the elements from tmp array to original array
-        //pass as parameter also an event handler for step-by-step animation
-        parallelTransition =
-            pigeonHole
-                .getMoveBackAnimation(arrayBoxesToSort, arrayOffset, stepTransitionEventHandler);
-        //add the parallel transition to the total sort animation
-        transitionQueue.add(parallelTransition);
-        //increase the array offset by a value equal to the number of elements moved back
-        arrayOffset += listLength;
+   * @param number int: the value of the pigeonhole
+   * @param arrayOffset int: the position in the array of the first element moved back
+   * @return Transition: the parallel transition (fade+translate) of the elements
+   */
+  private Transition createMoveBackAnimation(int number, int arrayOffset) {
+    PigeonHole pigeonHole = pigeonHoles.get(number);
+    //pass as parameter also an event handler for step-by-step animation
+    Transition transition = pigeonHole
+        .getMoveBackAnimation(arrayBoxesToSort, arrayOffset, stepTransitionEventHandler);
+    //the replaced boxes are transparent once the transition finishes, so they are removed with
+    // the emptied pigeonhole. The pigeonholes move back in order, so they are always the first
+    // nodes left in their layers
+    int replaced = pigeonHole.getListSize();
+    Pane layer = arrayLayer;
+    Pane holes = holesLayer;
+    Map<Integer, PigeonHole> shownHoles = pigeonHoles;
+    ArrayList<ArrayElementBox> boxes = arrayBoxesToSort;
+    transition.setOnFinished(event -> {
+      layer.getChildren().remove(0, Math.min(replaced, layer.getChildren().size()));
+      for (int i = arrayOffset; i < arrayOffset + replaced; i++) {
+        boxes.set(i, null);
       }
-    }
+      holes.getChildren().remove(pigeonHole);
+      shownHoles.remove(number);
+      stepTransitionEventHandler.handle(event);
+    });
+    return transition;
   }
 
+  /**
+   * Check if there are animations left, either in the queue or in the sorting timeline.
+   *
+   * @return boolean: true if there's another animation to play
+   */
+  private boolean hasNextAnimation() {
+    return !transitionQueue.isEmpty() || (sortTimeline != null && sortTimeline.hasNext());
+  }
 
   /**
    * Handler of sort button click.
@@ -467,13 +803,20 @@ public class MainController {
   private void OnSortArrayButtonClick() {
     //set step by step mode to false
     stepByStep = false;
+    //the other renderers play the whole model
+    if (renderer != Renderer.NODES) {
+      if (animationModel != null) {
+        animationClock.playTo(animationModel.getSteps());
+      }
+      return;
+    }
     //if the sorting animation has not been prepared
     if (!sortingAnimationPrepared) {
       //prepare the sorting animation
       prepareSortingAnimation();
     }
     //if the queue of sort animation is not empty
-    if (!transitionQueue.isEmpty()) {
+    if (hasNextAnimation()) {
       //remove and animation from the queue and play it
       playNextAnimation();
     }
@@ -489,9 +832,70 @@ public class MainController {
     sortingAnimationPrepared = false;
     //create a new AnimationDuration with bind at value property of the slider
     animationsDuration = new AnimationDuration(animationSpeedSlider.valueProperty());
+    //the seek slider follows the clock, and moves it when the user drags it
+    animationClock.timeProperty().addListener((observable, oldTime, newTime) -> {
+      seekSliderUpdating = true;
+      seekSlider.setValue(newTime.doubleValue());
+      seekSliderUpdating = false;
+    });
+    seekSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+      if (!seekSliderUpdating) {
+        animationClock.reset(newValue.doubleValue());
+      }
+    });
+    //fill the combo box of the renderers
+    rendererComboBox.getItems().setAll(Renderer.values());
+    rendererComboBox.setValue(Renderer.NODES);
+    //keep the canvas as large as the visible area
+    animationScrollPane.viewportBoundsProperty().addListener(observable -> {
+      if (renderer == Renderer.CANVAS) {
+        resizeCanvas();
+      }
+    });
+    //materialize the nodes that scrolled into the visible area
+    InvalidationListener visibleAreaListener = observable -> {
+      if (renderer == Renderer.VIRTUALIZED) {
+        updateVisibleArea();
+      }
+    };
+    animationScrollPane.viewportBoundsProperty().addListener(visibleAreaListener);
+    animationScrollPane.hvalueProperty().addListener(visibleAreaListener);
+    animationScrollPane.vvalueProperty().addListener(visibleAreaListener);
   }
 
 
+  /**
+   * Renderers of the sorting animation.
+   */
+  private enum Renderer {
+    /**
+     * A node and a transition for every element, copy and pigeonhole.
+     */
+    NODES("Nodes"),
+    /**
+     * Recycled nodes only for the visible elements and the non empty pigeonholes.
+     */
+    VIRTUALIZED("Virtualized nodes"),
+    /**
+     * A single canvas fitting the whole animation.
+     */
+    CANVAS("Canvas");
+
+    /**
+     * Name shown in the combo box.
+     */
+    private final String name;
+
+    Renderer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
   /**
    * Event handler for terminating an animation.
    */
@@ -500,7 +904,7 @@ public class MainController {
     @Override
     public void handle(ActionEvent event) {
       //if the queue is not empty and the user didn't request a step by step transition
-      if (!transitionQueue.isEmpty() && !stepByStep) {
+      if (!stepByStep && hasNextAnimation()) {
         //remove last animation and play it
         playNextAnimation();
       }
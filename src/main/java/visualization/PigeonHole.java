@@ -18,14 +18,13 @@
 
 package visualization;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.animation.FadeTransition;
 import javafx.animation.ParallelTransition;
 import javafx.animation.TranslateTransition;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
 import javafx.util.Duration;
 
 
@@ -52,7 +51,8 @@ public class PigeonHole extends ArrayElementBox {
    * position of this element.
    */
   public PigeonHole(int number) {
-    super(number);
+    //a pigeonhole is an empty white box with a black border
+    super(String.valueOf(number), Color.WHITE, Color.BLACK, Color.BLACK);
     //translate the box vertically
     this.setTranslateY(ArrayElementBox.boxTotalSize * 2);
     //translate the box horizontally according to element index in the temporary array
@@ -124,7 +124,6 @@ public class PigeonHole extends ArrayElementBox {
       fadeTransition.durationProperty().bind(MainController.animationsDuration);
       //add the fade and translate transition to the parallel transition
       parallelTransition.getChildren().addAll(translateTransition, fadeTransition);
-      //TODO also remove old StackPane from the scene graph
       //increase array offset because an element has been overwrite
       arrayToSortOffset++;
     }
@@ -143,23 +142,4 @@ public class PigeonHole extends ArrayElementBox {
     return this.listOfArrayBoxes.size();
   }
 
-  /**
-   * load the fxml representing this pigeonhole. This method override the method declared in
-   * {@link ArrayElementBox} for changing the fxml file path.
-   */
-  protected void loadFXML() {
-    //create a new fxml loader for loading the fxml from file
-    FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/pigeon.fxml"));
-    //set the root element as this object
-    fxmlLoader.setRoot(this);
-    //set the controller as this object
-    fxmlLoader.setController(this);
-    try {
-      //load the fxml from file
-      fxmlLoader.load();
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
-  }
-
 }
@@ -0,0 +1,441 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package visualization;
+
+import algorithm.SortTrace;
+import java.util.Arrays;
+
+/**
+ * Model of the sorting animation that gives the position of every element at any time, without
+ * creating nodes or transitions.
+ * <p>
+ * Time is measured in steps, with a fractional part for the progress inside a step. In step 0 the
+ * pigeonholes appear. Then the elements move from the array to their pigeonhole, in array order,
+ * and finally the content of every non empty pigeonhole moves back to the array, in pigeonhole
+ * order. Long arrays move several elements, or several pigeonholes, in the same step, so that
+ * every phase takes at most {@link #MAX_PHASE_STEPS} steps.
+ * <p>
+ * Positions are in boxes: x is the index of the column and y is 0 for the array and 2 for the
+ * pigeonholes, like the nodes of {@link MainController}. Pigeonholes have a column for every value
+ * between 0 and the maximum, or empty pigeonholes can be collapsed, so that the columns are as many
+ * as the distinct values. Either way only the non empty pigeonholes are stored, by rank in
+ * ascending order, so the memory of the model doesn't depend on the maximum.
+ * <p>
+ * The model is built only from the {@link SortTrace} of the sort, so building it, replaying and
+ * seeking never sort again, and the position of every element at any time is computed in
+ * constant time.
+ */
+public class SortAnimationModel {
+
+  /**
+   * Maximum number of steps of the fill and of the move back phases.
+   */
+  public static final int MAX_PHASE_STEPS = 100;
+
+  /**
+   * Row of the pigeonholes.
+   */
+  public static final double HOLES_Y = 2;
+
+  /**
+   * Vertical distance between two elements of the same pigeonhole, in boxes.
+   */
+  public static final double DEPTH_Y = 50.0 / ArrayElementBox.boxTotalSize;
+
+  /**
+   * Step in which the elements start moving to the pigeonholes.
+   */
+  private static final int FILL_START = 1;
+
+  /**
+   * Trace of the sort shown by the animation.
+   */
+  private final SortTrace trace;
+
+  /**
+   * Values of the array to sort.
+   */
+  private final int[] values;
+
+  /**
+   * Position of every element inside its pigeonhole, starting from 1.
+   */
+  private final int[] depths;
+
+  /**
+   * Index of every element in the sorted array.
+   */
+  private final int[] targets;
+
+  /**
+   * Element that ends in every position of the sorted array.
+   */
+  private final int[] sortedElements;
+
+  /**
+   * Rank of the pigeonhole of every element among the non empty pigeonholes.
+   */
+  private final int[] ranks;
+
+  /**
+   * Value of every non empty pigeonhole, in ascending order.
+   */
+  private final int[] rankValues;
+
+  /**
+   * True if only the non empty pigeonholes have a column.
+   */
+  private final boolean collapseEmptyHoles;
+
+  /**
+   * Number of columns of the pigeonholes.
+   */
+  private final int columns;
+
+  /**
+   * First position in the sorted array of the elements of every non empty pigeonhole, in
+   * ascending order, followed by the length of the array.
+   */
+  private final int[] rankOffsets;
+
+  /**
+   * Number of pigeonholes moving back in the same step.
+   */
+  private final int holeBatch;
+
+  /**
+   * Step in which the element that ends in every position of the array moves back.
+   */
+  private final int[] slotSteps;
+
+  /**
+   * Number of elements moving to the pigeonholes in the same step.
+   */
+  private final int fillBatch;
+
+  /**
+   * Step in which the elements start moving back to the array.
+   */
+  private final int writeStart;
+
+  /**
+   * Total number of steps.
+   */
+  private final int steps;
+
+  /**
+   * Maximum number of elements in a pigeonhole.
+   */
+  private final int maxDepth;
+
+  /**
+   * Create the model of the sorting animation recorded by a trace, without sorting again.
+   *
+   * @param trace SortTrace: the trace of the sort, with values between 0 and the maximum
+   * @param collapseEmptyHoles boolean: true for giving a column only to non empty pigeonholes
+   * @throws IllegalArgumentException if a value is negative
+   */
+  public SortAnimationModel(SortTrace trace, boolean collapseEmptyHoles) {
+    if (trace.length() > 0 && trace.min() < 0) {
+      throw new IllegalArgumentException("Negative value: " + trace.min());
+    }
+    this.trace = trace;
+    this.collapseEmptyHoles = collapseEmptyHoles;
+    //the non empty pigeonholes, in ascending order, come from the write back events
+    int occupied = trace.occupiedHoles();
+    rankValues = new int[occupied];
+    rankOffsets = new int[occupied + 1];
+    for (int rank = 0; rank < occupied; rank++) {
+      rankValues[rank] = trace.min() + trace.writtenHole(rank);
+      rankOffsets[rank] = trace.writtenPosition(rank);
+    }
+    rankOffsets[occupied] = trace.length();
+    //the depth of every element comes from its placement event
+    values = new int[trace.length()];
+    depths = new int[trace.length()];
+    ranks = new int[trace.length()];
+    int deepest = 0;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = trace.value(i);
+      depths[i] = trace.depth(i);
+      ranks[i] = Arrays.binarySearch(rankValues, values[i]);
+      deepest = Math.max(deepest, depths[i]);
+    }
+    maxDepth = deepest;
+    columns = collapseEmptyHoles ? occupied : values.length > 0 ? trace.max() + 1 : 1;
+    fillBatch = batch(values.length);
+    writeStart = FILL_START + ceilDiv(values.length, fillBatch);
+    holeBatch = batch(occupied);
+    //the sorted position of every element, and the step in which it moves back
+    targets = new int[values.length];
+    slotSteps = new int[values.length];
+    sortedElements = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      targets[i] = rankOffsets[ranks[i]] + depths[i] - 1;
+      slotSteps[targets[i]] = getMoveBackStep(i);
+      sortedElements[targets[i]] = i;
+    }
+    steps = writeStart + ceilDiv(occupied, holeBatch);
+  }
+
+  /**
+   * Get how many items move in the same step so that a phase takes at most
+   * {@link #MAX_PHASE_STEPS} steps.
+   *
+   * @param items int: the number of items moving during the phase
+   * @return int: the number of items per step, at least 1
+   */
+  private static int batch(int items) {
+    return Math.max(1, ceilDiv(items, MAX_PHASE_STEPS));
+  }
+
+  /**
+   * Divide rounding up.
+   *
+   * @param dividend int: the non negative dividend
+   * @param divisor int: the positive divisor
+   * @return int: the quotient rounded up
+   */
+  private static int ceilDiv(int dividend, int divisor) {
+    return (dividend + divisor - 1) / divisor;
+  }
+
+  /**
+   * Get the trace of the sort shown by the animation.
+   *
+   * @return SortTrace: the trace
+   */
+  public SortTrace getTrace() {
+    return trace;
+  }
+
+  /**
+   * Get the number of elements of the array.
+   *
+   * @return int: the length of the array
+   */
+  public int getLength() {
+    return values.length;
+  }
+
+  /**
+   * Get the number of columns of the pigeonholes.
+   *
+   * @return int: the number of pigeonholes shown
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the value of the pigeonhole of a column.
+   *
+   * @param column int: the column
+   * @return int: the value of the pigeonhole
+   */
+  public int getHoleValue(int column) {
+    return collapseEmptyHoles ? rankValues[column] : column;
+  }
+
+  /**
+   * Get the first position in the sorted array of the elements of the pigeonhole of a column.
+   * The elements of the pigeonhole, from the top to the bottom, end in the positions between
+   * this one and the one of the next column.
+   *
+   * @param column int: the column, up to the number of columns included
+   * @return int: the position in the sorted array
+   */
+  public int getColumnOffset(int column) {
+    if (collapseEmptyHoles) {
+      return rankOffsets[column];
+    }
+    //the first non empty pigeonhole from the one of the column on
+    int rank = Arrays.binarySearch(rankValues, column);
+    return rankOffsets[rank >= 0 ? rank : -rank - 1];
+  }
+
+  /**
+   * Get the element that ends in a position of the sorted array.
+   *
+   * @param position int: the position in the sorted array
+   * @return int: the index of the element in the array to sort
+   */
+  public int getSortedElement(int position) {
+    return sortedElements[position];
+  }
+
+  /**
+   * Get the step in which an element moves to its pigeonhole.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @return int: the step
+   */
+  public int getFillStep(int element) {
+    return FILL_START + element / fillBatch;
+  }
+
+  /**
+   * Get the step in which an element moves back to the array.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @return int: the step
+   */
+  public int getMoveBackStep(int element) {
+    return writeStart + ranks[element] / holeBatch;
+  }
+
+  /**
+   * Get the column of the pigeonhole of an element.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @return int: the column
+   */
+  private int getColumn(int element) {
+    return collapseEmptyHoles ? ranks[element] : values[element];
+  }
+
+  /**
+   * Get the first element moving to its pigeonhole in a step. The elements moving in a step are
+   * the ones between this and the first of the next step.
+   *
+   * @param step int: the step
+   * @return int: the index of the element in the array to sort, between 0 and the length
+   */
+  public int getFirstFilled(int step) {
+    return (int) Math.max(0, Math.min(values.length, (long) (step - FILL_START) * fillBatch));
+  }
+
+  /**
+   * Get the first position of the sorted array reached by the elements moving back in a step.
+   * The elements moving back in a step end between this position and the first of the next step.
+   *
+   * @param step int: the step
+   * @return int: the position in the sorted array, between 0 and the length
+   */
+  public int getFirstMovedBack(int step) {
+    long rank = Math.max(0, (long) (step - writeStart) * holeBatch);
+    return rankOffsets[(int) Math.min(rank, rankOffsets.length - 1)];
+  }
+
+  /**
+   * Get the maximum number of elements in a pigeonhole.
+   *
+   * @return int: the depth of the fullest pigeonhole
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Get the height of the animation, from the array to the bottom of the fullest pigeonhole.
+   *
+   * @return double: the number of rows
+   */
+  public double getRows() {
+    return HOLES_Y + maxDepth * DEPTH_Y + 1;
+  }
+
+  /**
+   * Get the total number of steps of the animation.
+   *
+   * @return int: the step in which the array is sorted
+   */
+  public int getSteps() {
+    return steps;
+  }
+
+  /**
+   * Get the value of an element.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @return int: the value of the element
+   */
+  public int getValue(int element) {
+    return values[element];
+  }
+
+  /**
+   * Get the opacity of the pigeonholes, that fade in during step 0.
+   *
+   * @param time double: the time in steps
+   * @return double: the opacity between 0 and 1
+   */
+  public double getHolesOpacity(double time) {
+    return progress(time, 0);
+  }
+
+  /**
+   * Get the opacity of an element of the array to sort at its original position. It fades out
+   * while the sorted element that replaces it moves back.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   * @return double: the opacity between 0 and 1
+   */
+  public double getOriginalOpacity(int element, double time) {
+    return 1 - progress(time, slotSteps[element]);
+  }
+
+  /**
+   * Check if the copy of an element is moving or resting in a pigeonhole or back in the array.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   * @return boolean: true once the element has started moving to its pigeonhole
+   */
+  public boolean isMoved(int element, double time) {
+    return time >= getFillStep(element);
+  }
+
+  /**
+   * Get the x position of the copy of an element.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   * @return double: the column of the element
+   */
+  public double getX(int element, double time) {
+    double fill = progress(time, getFillStep(element));
+    double back = progress(time, getMoveBackStep(element));
+    double x = element + (getColumn(element) - element) * fill;
+    return x + (targets[element] - x) * back;
+  }
+
+  /**
+   * Get the y position of the copy of an element.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   * @return double: the row of the element
+   */
+  public double getY(int element, double time) {
+    double fill = progress(time, getFillStep(element));
+    double back = progress(time, getMoveBackStep(element));
+    return (HOLES_Y + depths[element] * DEPTH_Y) * fill * (1 - back);
+  }
+
+  /**
+   * Get the progress of a step at a time.
+   *
+   * @param time double: the time in steps
+   * @param step int: the step
+   * @return double: 0 before the step, 1 after it and the fraction of the step in between
+   */
+  private static double progress(double time, int step) {
+    return Math.max(0, Math.min(1, time - step));
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package visualization;
+
+import algorithm.SortTrace;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import javafx.application.Platform;
+
+/**
+ * Lazy sequence of the steps of the sorting animation of the node renderer, read from the
+ * {@link SortTrace} of the sort.
+ * <p>
+ * Steps are small descriptions of what moves, not transitions: a background thread computes them
+ * in windows of {@link #WINDOW} steps and hands every window to the JavaFX thread with
+ * {@link Platform#runLater(Runnable)}, where {@link MainController} turns every step into its
+ * nodes and transition just before playing it. The thread waits when {@link #LOOKAHEAD_WINDOWS}
+ * windows are not played yet, and every step comes in closed form from the trace, so starting a
+ * timeline costs nothing and its memory is bounded by the lookahead. Only the non empty
+ * pigeonholes have steps, so nothing depends on the maximum value.
+ */
+public class SortTimeline {
+
+  /**
+   * Number of steps handed to the JavaFX thread at a time.
+   */
+  public static final int WINDOW = 256;
+
+  /**
+   * Maximum number of windows computed ahead of the step playing.
+   */
+  public static final int LOOKAHEAD_WINDOWS = 4;
+
+  /**
+   * Trace of the sort.
+   */
+  private final SortTrace trace;
+
+  /**
+   * Total number of steps: two for every non empty pigeonhole and one for every element.
+   */
+  private final long steps;
+
+  /**
+   * Called on the JavaFX thread every time a window arrives.
+   */
+  private final Runnable onWindow;
+
+  /**
+   * Windows that can be computed before the JavaFX thread plays the ones already handed over.
+   */
+  private final Semaphore freeWindows = new Semaphore(LOOKAHEAD_WINDOWS);
+
+  /**
+   * Thread computing the windows.
+   */
+  private final Thread generator;
+
+  /**
+   * Windows handed over and not played yet, used only by the JavaFX thread.
+   */
+  private final Queue<Step[]> windows = new ArrayDeque<>();
+
+  /**
+   * Index in the first window of the next step, used only by the JavaFX thread.
+   */
+  private int nextInWindow;
+
+  /**
+   * Number of steps taken, used only by the JavaFX thread.
+   */
+  private long taken;
+
+  /**
+   * Flag for know if the timeline has been cancelled, so that windows still arriving are dropped.
+   */
+  private volatile boolean cancelled;
+
+  /**
+   * Create a new timeline.
+   *
+   * @param trace SortTrace: the trace of the sort, with values between 0 and the maximum
+   * @param onWindow Runnable: called on the JavaFX thread every time a window arrives
+   */
+  private SortTimeline(SortTrace trace, Runnable onWindow) {
+    this.trace = trace;
+    this.onWindow = onWindow;
+    steps = 2L * trace.occupiedHoles() + trace.length();
+    generator = new Thread(this::generate, "sort-timeline");
+    //a timeline left unfinished doesn't keep the application alive
+    generator.setDaemon(true);
+  }
+
+  /**
+   * Start computing the steps of the sorting animation recorded by a trace in background. It
+   * must be called on the JavaFX thread.
+   *
+   * @param trace SortTrace: the trace of the sort, with values between 0 and the maximum
+   * @param onWindow Runnable: called on the JavaFX thread every time a window arrives, for
+   * playing the steps that were not ready
+   * @return SortTimeline: the timeline of the sort
+   */
+  public static SortTimeline start(SortTrace trace, Runnable onWindow) {
+    SortTimeline timeline = new SortTimeline(trace, onWindow);
+    timeline.generator.start();
+    return timeline;
+  }
+
+  /**
+   * Check if there are steps left, arrived or not. It must be called on the JavaFX thread.
+   *
+   * @return boolean: true if there's another step
+   */
+  public boolean hasNext() {
+    return !cancelled && taken < steps;
+  }
+
+  /**
+   * Get the next step if its window has arrived, without waiting. It must be called on the
+   * JavaFX thread.
+   *
+   * @return Step: the next step, null if its window has not arrived yet
+   * @throws NoSuchElementException if there are no steps left
+   */
+  public Step poll() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Step[] window = windows.peek();
+    if (window == null) {
+      return null;
+    }
+    Step step = window[nextInWindow++];
+    taken++;
+    if (nextInWindow == window.length) {
+      //the window is played, the generator can compute another one
+      windows.remove();
+      nextInWindow = 0;
+      freeWindows.release();
+    }
+    return step;
+  }
+
+  /**
+   * Stop computing steps and drop the windows not played yet.
+   */
+  public void cancel() {
+    cancelled = true;
+    generator.interrupt();
+    windows.clear();
+  }
+
+  /**
+   * Compute every window of steps and hand it to the JavaFX thread, waiting while
+   * {@link #LOOKAHEAD_WINDOWS} windows are not played.
+   */
+  private void generate() {
+    try {
+      for (long first = 0; first < steps && !cancelled; first += WINDOW) {
+        freeWindows.acquire();
+        Step[] window = new Step[(int) Math.min(WINDOW, steps - first)];
+        for (int i = 0; i < window.length; i++) {
+          window[i] = step(first + i);
+        }
+        Platform.runLater(() -> deliver(window));
+      }
+    } catch (InterruptedException e) {
+      //the timeline has been cancelled
+    }
+  }
+
+  /**
+   * Add a window to the ones to play. It's called on the JavaFX thread.
+   *
+   * @param window Step[]: the steps of the window
+   */
+  private void deliver(Step[] window) {
+    if (!cancelled) {
+      windows.add(window);
+      onWindow.run();
+    }
+  }
+
+  /**
+   * Get a step from the trace: the appearance of every non empty pigeonhole, then the move of
+   * every element to its pigeonhole and finally the move back of every non empty pigeonhole.
+   *
+   * @param index long: the index of the step
+   * @return Step: the step
+   */
+  private Step step(long index) {
+    int occupied = trace.occupiedHoles();
+    if (index < occupied) {
+      int column = (int) index;
+      return new Step(StepType.SHOW_HOLE, trace.writtenHole(column) + trace.min(), column);
+    }
+    index -= occupied;
+    if (index < trace.length()) {
+      int element = (int) index;
+      return new Step(StepType.FILL_HOLE, trace.value(element), element);
+    }
+    int event = (int) (index - trace.length());
+    return new Step(StepType.MOVE_BACK, trace.writtenHole(event) + trace.min(),
+        trace.writtenPosition(event));
+  }
+
+  /**
+   * Kinds of step of the sorting animation.
+   */
+  public enum StepType {
+    /**
+     * A pigeonhole appears.
+     */
+    SHOW_HOLE,
+    /**
+     * An element moves from the array to its pigeonhole.
+     */
+    FILL_HOLE,
+    /**
+     * The elements of a pigeonhole move back to the array.
+     */
+    MOVE_BACK
+  }
+
+  /**
+   * A step of the sorting animation.
+   */
+  public static final class Step {
+
+    /**
+     * Kind of step.
+     */
+    private final StepType type;
+
+    /**
+     * Value of the pigeonhole involved.
+     */
+    private final int hole;
+
+    /**
+     * Index in the array: the element moving for FILL_HOLE, the position of the first element
+     * moving back for MOVE_BACK, the column of the pigeonhole for SHOW_HOLE.
+     */
+    private final int index;
+
+    /**
+     * Create a new step.
+     *
+     * @param type StepType: the kind of step
+     * @param hole int: the value of the pigeonhole involved
+     * @param index int: the index in the array
+     */
+    private Step(StepType type, int hole, int index) {
+      this.type = type;
+      this.hole = hole;
+      this.index = index;
+    }
+
+    /**
+     * Get the kind of step.
+     *
+     * @return StepType: the kind of step
+     */
+    public StepType getType() {
+      return type;
+    }
+
+    /**
+     * Get the value of the pigeonhole involved.
+     *
+     * @return int: the value of the pigeonhole
+     */
+    public int getHole() {
+      return hole;
+    }
+
+    /**
+     * Get the index in the array: the element moving for FILL_HOLE, the position of the first
+     * element moving back for MOVE_BACK, the column of the pigeonhole for SHOW_HOLE.
+     *
+     * @return int: the index in the array
+     */
+    public int getIndex() {
+      return index;
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package visualization;
+
+import static visualization.ArrayElementBox.boxSize;
+import static visualization.ArrayElementBox.boxTotalSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.layout.Pane;
+
+/**
+ * Virtualized node renderer of the sorting animation.
+ * <p>
+ * The pane is as large as the whole animation, so the {@link javafx.scene.control.ScrollPane}
+ * containing it scrolls as usual, but only the pigeonholes and the elements intersecting the
+ * visible area have a node. Nodes are kept in pools and recycled at every frame, so their number
+ * is proportional to the visible area instead of to the length and the range of the array. The
+ * positions come from a {@link SortAnimationModel} at the time of an {@link AnimationClock}, and
+ * the model is expected to collapse empty pigeonholes.
+ */
+public class VirtualSortView extends Pane {
+
+  /**
+   * Clock giving the time of the frame to show.
+   */
+  private final AnimationClock clock;
+
+  /**
+   * Layer of the pigeonholes, under the elements.
+   */
+  private final Group holesLayer = new Group();
+
+  /**
+   * Layer of the elements.
+   */
+  private final Group elementsLayer = new Group();
+
+  /**
+   * Pigeonholes created so far, the first ones are shown in the current frame.
+   */
+  private final List<PigeonHole> holesPool = new ArrayList<>();
+
+  /**
+   * Elements created so far, the first ones are shown in the current frame.
+   */
+  private final List<ArrayElementBox> elementsPool = new ArrayList<>();
+
+  /**
+   * Model of the animation, null if there's no array.
+   */
+  private SortAnimationModel model;
+
+  /**
+   * Values of the array being read, shown while there's no model, null if there's no array.
+   */
+  private List<Integer> input;
+
+  /**
+   * Visible area in the coordinates of this pane.
+   */
+  private Bounds visibleArea = new BoundingBox(0, 0, 0, 0);
+
+  /**
+   * Number of pigeonholes shown in the current frame.
+   */
+  private int holesUsed;
+
+  /**
+   * Number of elements shown in the current frame.
+   */
+  private int elementsUsed;
+
+  /**
+   * Create a new virtualized view.
+   *
+   * @param clock AnimationClock: the clock giving the time of the frame to show
+   */
+  public VirtualSortView(AnimationClock clock) {
+    this.clock = clock;
+    getChildren().addAll(holesLayer, elementsLayer);
+    //show a new frame when the time changes
+    clock.timeProperty().addListener(observable -> update());
+  }
+
+  /**
+   * Show a new array. The pane is resized to contain the whole animation.
+   *
+   * @param model SortAnimationModel: the model of the animation, null for an empty view
+   */
+  public void setModel(SortAnimationModel model) {
+    this.model = model;
+    input = null;
+    if (model == null) {
+      setMinSize(0, 0);
+      setPrefSize(0, 0);
+    } else {
+      double width = Math.max(model.getLength(), model.getColumns()) * boxTotalSize;
+      double height = model.getRows() * boxTotalSize;
+      setMinSize(width, height);
+      setPrefSize(width, height);
+    }
+    update();
+  }
+
+  /**
+   * Show an array while it's being read, before the model of its animation is created. Only the
+   * array to sort is shown, and the pane is resized to contain it.
+   *
+   * @param input List: the values read so far, shown again at every call
+   */
+  public void setInput(List<Integer> input) {
+    model = null;
+    this.input = input;
+    setMinSize(input.size() * boxTotalSize, boxTotalSize);
+    setPrefSize(input.size() * boxTotalSize, boxTotalSize);
+    update();
+  }
+
+  /**
+   * Set the area visible through the scroll pane.
+   *
+   * @param visibleArea Bounds: the visible area in the coordinates of this pane
+   */
+  public void setVisibleArea(Bounds visibleArea) {
+    this.visibleArea = visibleArea;
+    update();
+  }
+
+  /**
+   * Show the pigeonholes and the elements visible at the current time, hiding the nodes left.
+   */
+  private void update() {
+    holesUsed = 0;
+    elementsUsed = 0;
+    if (model != null && model.getLength() > 0) {
+      showFrame(clock.getTime());
+    } else if (input != null && isRowVisible(0)) {
+      //the array being read, without moving elements
+      int lastPosition = Math.min(getLastColumn(), input.size());
+      for (int position = getFirstColumn(); position < lastPosition; position++) {
+        showElement(input.get(position), position, 0, 1);
+      }
+    }
+    for (int i = holesUsed; i < holesPool.size(); i++) {
+      holesPool.get(i).setVisible(false);
+    }
+    for (int i = elementsUsed; i < elementsPool.size(); i++) {
+      elementsPool.get(i).setVisible(false);
+    }
+  }
+
+  /**
+   * Show the pigeonholes and the elements visible at a time.
+   *
+   * @param time double: the time in steps
+   */
+  private void showFrame(double time) {
+    int step = (int) Math.floor(time);
+    //columns intersecting the visible area
+    int firstColumn = getFirstColumn();
+    int lastColumn = getLastColumn();
+    int lastPosition = Math.min(lastColumn, model.getLength());
+    int lastHole = Math.min(lastColumn, model.getColumns());
+    //pigeonholes, only the non empty ones have a column
+    double holesOpacity = model.getHolesOpacity(time);
+    if (holesOpacity > 0 && isRowVisible(SortAnimationModel.HOLES_Y)) {
+      for (int column = firstColumn; column < lastHole; column++) {
+        showHole(column, holesOpacity);
+      }
+    }
+    if (isRowVisible(0)) {
+      //the array to sort, fading out while the sorted elements move back
+      for (int position = firstColumn; position < lastPosition; position++) {
+        double opacity = model.getOriginalOpacity(position, time);
+        if (opacity > 0) {
+          showElement(model.getValue(position), position, 0, opacity);
+        }
+      }
+      //elements already moved back to their sorted position
+      for (int position = firstColumn; position < lastPosition; position++) {
+        int element = model.getSortedElement(position);
+        if (model.getMoveBackStep(element) < step) {
+          showCopy(element, time);
+        }
+      }
+    }
+    //elements resting in the visible part of their pigeonhole
+    double depthsTop = SortAnimationModel.HOLES_Y * boxTotalSize;
+    double depthHeight = SortAnimationModel.DEPTH_Y * boxTotalSize;
+    long firstDepth = (long) Math.max(1,
+        Math.floor((visibleArea.getMinY() - boxSize - depthsTop) / depthHeight));
+    long lastDepth = (long) Math.ceil((visibleArea.getMaxY() - depthsTop) / depthHeight);
+    for (int column = firstColumn; column < lastHole && firstDepth <= lastDepth; column++) {
+      int start = model.getColumnOffset(column);
+      int end = model.getColumnOffset(column + 1);
+      long from = Math.min(end, start + firstDepth - 1);
+      long to = Math.min(end, start + lastDepth);
+      for (int position = (int) from; position < to; position++) {
+        int element = model.getSortedElement(position);
+        if (model.getFillStep(element) < step && model.getMoveBackStep(element) > step) {
+          showCopy(element, time);
+        }
+      }
+    }
+    //elements moving in the current step, to their pigeonhole or back to the array
+    for (int element = model.getFirstFilled(step); element < model.getFirstFilled(step + 1);
+        element++) {
+      showCopyIfVisible(element, time);
+    }
+    for (int position = model.getFirstMovedBack(step);
+        position < model.getFirstMovedBack(step + 1); position++) {
+      showCopyIfVisible(model.getSortedElement(position), time);
+    }
+  }
+
+  /**
+   * Get the first column intersecting the visible area.
+   *
+   * @return int: the column
+   */
+  private int getFirstColumn() {
+    return (int) Math.max(0, Math.floor(visibleArea.getMinX() / boxTotalSize));
+  }
+
+  /**
+   * Get the column after the last one intersecting the visible area.
+   *
+   * @return int: the column
+   */
+  private int getLastColumn() {
+    return (int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(visibleArea.getMaxX() / boxTotalSize));
+  }
+
+  /**
+   * Check if a row of boxes intersects the visible area.
+   *
+   * @param row double: the row in boxes
+   * @return boolean: true if the row is visible
+   */
+  private boolean isRowVisible(double row) {
+    double y = row * boxTotalSize;
+    return y + boxSize > visibleArea.getMinY() && y < visibleArea.getMaxY();
+  }
+
+  /**
+   * Show the copy of an element if it intersects the visible area.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   */
+  private void showCopyIfVisible(int element, double time) {
+    double x = model.getX(element, time) * boxTotalSize;
+    double y = model.getY(element, time) * boxTotalSize;
+    if (visibleArea.intersects(x, y, boxSize, boxSize)) {
+      showCopy(element, time);
+    }
+  }
+
+  /**
+   * Show the copy of an element at its position.
+   *
+   * @param element int: the index of the element in the array to sort
+   * @param time double: the time in steps
+   */
+  private void showCopy(int element, double time) {
+    showElement(model.getValue(element), model.getX(element, time), model.getY(element, time), 1);
+  }
+
+  /**
+   * Show an element with the first unused box of the pool, creating it if needed.
+   *
+   * @param number int: the value of the element
+   * @param x double: the column of the element
+   * @param y double: the row of the element
+   * @param opacity double: the opacity of the element
+   */
+  private void showElement(int number, double x, double y, double opacity) {
+    ArrayElementBox box;
+    if (elementsUsed < elementsPool.size()) {
+      box = elementsPool.get(elementsUsed);
+      box.setNumber(number);
+    } else {
+      box = new ArrayElementBox(number);
+      elementsPool.add(box);
+      elementsLayer.getChildren().add(box);
+    }
+    elementsUsed++;
+    box.setTranslateX(x * boxTotalSize);
+    box.setTranslateY(y * boxTotalSize);
+    box.setOpacity(opacity);
+    box.setVisible(true);
+  }
+
+  /**
+   * Show a pigeonhole with the first unused node of the pool, creating it if needed.
+   *
+   * @param column int: the column of the pigeonhole
+   * @param opacity double: the opacity of the pigeonhole
+   */
+  private void showHole(int column, double opacity) {
+    PigeonHole hole;
+    int value = model.getHoleValue(column);
+    if (holesUsed < holesPool.size()) {
+      hole = holesPool.get(holesUsed);
+      hole.setNumber(value);
+    } else {
+      hole = new PigeonHole(value);
+      holesPool.add(hole);
+      holesLayer.getChildren().add(hole);
+    }
+    holesUsed++;
+    hole.setTranslateX(column * boxTotalSize);
+    hole.setOpacity(opacity);
+    hole.setVisible(true);
+  }
+}
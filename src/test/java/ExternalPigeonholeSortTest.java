@@ -0,0 +1,78 @@
+/**
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import algorithm.ExternalPigeonholeSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit testing for external pigeonhole sort class
+ */
+public class ExternalPigeonholeSortTest {
+
+  @TempDir
+  Path directory;
+
+  private Path input;
+
+  private List<String> expected;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    Random random = new Random();
+    int[] values = random.ints(10_000, 0, 5000).toArray();
+    input = directory.resolve("input.txt");
+    Files.write(input, Arrays.stream(values).mapToObj(String::valueOf)
+        .collect(Collectors.toList()));
+    expected = Arrays.stream(values).sorted().mapToObj(String::valueOf)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Test for external sort correctness when the whole range fits in memory
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isDirectSortValid() throws Exception {
+    Path output = directory.resolve("output.txt");
+    ExternalPigeonholeSort.sort(input, output);
+    assertEquals(expected, Files.readAllLines(output));
+  }
+
+  /**
+   * Test for external sort correctness when the range is split in partitions
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isPartitionedSortValid() throws Exception {
+    Path output = directory.resolve("output.txt");
+    ExternalPigeonholeSort.sort(input, output, 1000 * Long.BYTES);
+    assertEquals(expected, Files.readAllLines(output));
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import algorithm.IntFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit testing for integer files reader and writer
+ */
+public class IntFilesTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Test for text parsing of positive, negative and extreme values with different line endings
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isTextReadValid() throws Exception {
+    Path file = directory.resolve("input.txt");
+    Files.write(file, "12\n9\r\n-5\n\n2147483647\n-2147483648".getBytes(StandardCharsets.US_ASCII));
+    assertArrayEquals(new int[]{12, 9, -5, Integer.MAX_VALUE, Integer.MIN_VALUE},
+        IntFiles.readText(file));
+    Files.write(file, "12\n9a\n".getBytes(StandardCharsets.US_ASCII));
+    assertThrows(NumberFormatException.class, () -> IntFiles.readText(file));
+    Files.write(file, "2147483648\n".getBytes(StandardCharsets.US_ASCII));
+    assertThrows(NumberFormatException.class, () -> IntFiles.readText(file));
+  }
+
+  /**
+   * Test for binary write and read round trip
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isBinaryRoundTripValid() throws Exception {
+    Path file = directory.resolve("input.bin");
+    int[] values = new Random().ints(100_000).toArray();
+    IntFiles.writeBinary(file, values);
+    assertArrayEquals(values, IntFiles.readBinary(file));
+  }
+}
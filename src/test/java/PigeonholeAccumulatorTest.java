@@ -0,0 +1,71 @@
+/**
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import algorithm.PigeonholeAccumulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Unit testing for incremental pigeonhole sort class
+ */
+public class PigeonholeAccumulatorTest {
+
+  /**
+   * Test for sorted snapshots while the range of values grows in both directions
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isAccumulatorValid() throws Exception {
+    Random random = new Random();
+    PigeonholeAccumulator accumulator = new PigeonholeAccumulator();
+    int[] added = new int[0];
+    for (int batch = 1; batch <= 10; batch++) {
+      int[] values = random.ints(100, -1000 * batch, 1000 * batch).toArray();
+      if (batch % 2 == 0) {
+        accumulator.addAll(values);
+      } else {
+        Arrays.stream(values).forEach(accumulator::add);
+      }
+      added = Arrays.copyOf(added, added.length + values.length);
+      System.arraycopy(values, 0, added, added.length - values.length, values.length);
+      int[] expected = added.clone();
+      Arrays.sort(expected);
+      assertArrayEquals(expected, accumulator.toArray());
+      PrimitiveIterator.OfInt iterator = accumulator.sortedIterator();
+      for (int value : expected) {
+        assertEquals(value, iterator.nextInt());
+      }
+      assertFalse(iterator.hasNext());
+    }
+    int[] drained = new int[added.length];
+    assertEquals(added.length, accumulator.drainTo(drained));
+    Arrays.sort(added);
+    assertArrayEquals(added, drained);
+    assertEquals(0, accumulator.size());
+    accumulator.add(Integer.MAX_VALUE);
+    accumulator.add(Integer.MAX_VALUE - 1);
+    assertArrayEquals(new int[]{Integer.MAX_VALUE - 1, Integer.MAX_VALUE}, accumulator.toArray());
+  }
+}
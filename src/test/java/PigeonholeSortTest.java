@@ -17,13 +17,31 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import algorithm.CompactCounts;
+import algorithm.DistinctKeySet;
 import algorithm.PigeonholeSort;
+import algorithm.SortMetrics;
+import algorithm.SortStrategy;
+import algorithm.SortTrace;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -45,46 +63,491 @@ public class PigeonholeSortTest {
   }
 
   /**
-   * Test for performance of pigeonhole sort
+   * Test for pigeonhole sort correctness
    * 
    * @throws Exception
    */
   @Test
-  public void pigeonHoleSort() throws Exception {
+  public void isPigeonSortValid() throws Exception {
     PigeonholeSort.sort(array);
+    int length = array.length;
+    for (int i = 0; i < length - 1; i++) {
+      assertTrue(array[i] <= array[i + 1]);
+    }
   }
 
   /**
-   * Test for performance comparison of java quicksort
-   * 
+   * Test for pigeonhole sort correctness on primitive arrays, negative values included
+   *
    * @throws Exception
    */
   @Test
-  public void quickSort() throws Exception {
-    Arrays.sort(array);
+  public void isPrimitiveSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(1000, -50, 50).toArray();
+    int[] denseInts = random.ints(1003, Integer.MAX_VALUE - 10, Integer.MAX_VALUE).toArray();
+    long[] longs = random.longs(1000, Long.MAX_VALUE - 100, Long.MAX_VALUE).toArray();
+    short[] shorts = new short[1000];
+    char[] chars = new char[1000];
+    for (int i = 0; i < 1000; i++) {
+      shorts[i] = (short) (random.nextInt(1 << 16) + Short.MIN_VALUE);
+      chars[i] = (char) random.nextInt(1 << 16);
+    }
+    int[] expectedInts = ints.clone();
+    int[] expectedDenseInts = denseInts.clone();
+    long[] expectedLongs = longs.clone();
+    short[] expectedShorts = shorts.clone();
+    char[] expectedChars = chars.clone();
+    Arrays.sort(expectedInts);
+    Arrays.sort(expectedDenseInts);
+    Arrays.sort(expectedLongs);
+    Arrays.sort(expectedShorts);
+    Arrays.sort(expectedChars);
+    PigeonholeSort.sort(ints);
+    PigeonholeSort.sort(denseInts);
+    PigeonholeSort.sort(longs);
+    PigeonholeSort.sort(shorts);
+    PigeonholeSort.sort(chars);
+    assertArrayEquals(expectedInts, ints);
+    assertArrayEquals(expectedDenseInts, denseInts);
+    assertArrayEquals(expectedLongs, longs);
+    assertArrayEquals(expectedShorts, shorts);
+    assertArrayEquals(expectedChars, chars);
   }
 
   /**
-   * Test for performance comparison of parallel merge sort
-   * 
+   * Test for pigeonhole sort correctness with negative values and values far from zero
+   *
    * @throws Exception
    */
   @Test
-  public void parallelSort() throws Exception {
-    Arrays.parallelSort(array);
+  public void isOffsetSortValid() throws Exception {
+    Random random = new Random();
+    Integer[] negativeArray = new Integer[1000];
+    Integer[] offsetArray = new Integer[1000];
+    for (int i = 0; i < 1000; i++) {
+      negativeArray[i] = random.nextInt(100) - 50;
+      offsetArray[i] = 1_000_000_000 + random.nextInt(100);
+    }
+    Integer[] expectedNegative = negativeArray.clone();
+    Integer[] expectedOffset = offsetArray.clone();
+    Arrays.sort(expectedNegative);
+    Arrays.sort(expectedOffset);
+    PigeonholeSort.sort(negativeArray);
+    PigeonholeSort.sort(offsetArray);
+    assertArrayEquals(expectedNegative, negativeArray);
+    assertArrayEquals(expectedOffset, offsetArray);
   }
 
   /**
-   * Test for pigeonhole sort correctness
-   * 
+   * Test for pigeonhole sort stability when sorting by a key extractor
+   *
    * @throws Exception
    */
   @Test
-  public void isPigeonSortValid() throws Exception {
-    PigeonholeSort.sort(array);
-    int length = array.length;
-    for (int i = 0; i < length - 1; i++) {
-      assertTrue(array[i] <= array[i + 1]);
+  public void isKeySortStable() throws Exception {
+    Random random = new Random();
+    //each element is a pair of key and original position
+    int[][] pairs = new int[1000][];
+    for (int i = 0; i < 1000; i++) {
+      pairs[i] = new int[]{random.nextInt(20) - 10, i};
+    }
+    PigeonholeSort.sort(pairs, pair -> pair[0]);
+    for (int i = 0; i < pairs.length - 1; i++) {
+      assertTrue(pairs[i][0] < pairs[i + 1][0]
+          || (pairs[i][0] == pairs[i + 1][0] && pairs[i][1] < pairs[i + 1][1]));
+    }
+  }
+
+  /**
+   * Test for parallel pigeonhole sort correctness and stability. A small threshold and a pool of
+   * four threads force the work to be split between threads.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isParallelSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(100_000, -1000, 1000).toArray();
+    long[] longs = random.longs(100_000, 0, 1_000_000).toArray();
+    int[][] pairs = new int[100_000][];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = new int[]{random.nextInt(50), i};
+    }
+    int[] expectedInts = ints.clone();
+    long[] expectedLongs = longs.clone();
+    Arrays.sort(expectedInts);
+    Arrays.sort(expectedLongs);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    pool.submit(() -> {
+      PigeonholeSort.parallelSort(ints, 1000);
+      PigeonholeSort.parallelSort(longs, 1000);
+      PigeonholeSort.parallelSort(pairs, pair -> pair[0], 1000);
+    }).get();
+    pool.shutdown();
+    assertArrayEquals(expectedInts, ints);
+    assertArrayEquals(expectedLongs, longs);
+    for (int i = 0; i < pairs.length - 1; i++) {
+      assertTrue(pairs[i][0] < pairs[i + 1][0]
+          || (pairs[i][0] == pairs[i + 1][0] && pairs[i][1] < pairs[i + 1][1]));
+    }
+  }
+
+  /**
+   * Test for the choice of the sorting strategy on dense, very sparse and wide arrays
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isAdaptiveSortValid() throws Exception {
+    Random random = new Random();
+    int[] dense = random.ints(1000, 0, 100).toArray();
+    int[] sparse = random.ints(200, 0, 1 << 30).toArray();
+    int[] wide = random.ints(100_000).toArray();
+    int[] expectedDense = dense.clone();
+    int[] expectedSparse = sparse.clone();
+    int[] expectedWide = wide.clone();
+    Arrays.sort(expectedDense);
+    Arrays.sort(expectedSparse);
+    Arrays.sort(expectedWide);
+    assertEquals(SortStrategy.PIGEONHOLE, PigeonholeSort.sortAdaptive(dense));
+    assertEquals(SortStrategy.COMPARISON, PigeonholeSort.sortAdaptive(sparse));
+    assertEquals(SortStrategy.RADIX, PigeonholeSort.sortAdaptive(wide));
+    assertArrayEquals(expectedDense, dense);
+    assertArrayEquals(expectedSparse, sparse);
+    assertArrayEquals(expectedWide, wide);
+  }
+
+  /**
+   * Test for pigeonhole sort correctness with off heap counters
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isOffHeapSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(1000, -(1 << 20), 1 << 20).toArray();
+    long[] longs = random.longs(1000, 0xFFFF_0000L, 0x1_0000_0000L).toArray();
+    int[] expectedInts = ints.clone();
+    long[] expectedLongs = longs.clone();
+    Arrays.sort(expectedInts);
+    Arrays.sort(expectedLongs);
+    PigeonholeSort.sortOffHeap(ints);
+    PigeonholeSort.sortOffHeap(longs);
+    assertArrayEquals(expectedInts, ints);
+    assertArrayEquals(expectedLongs, longs);
+  }
+
+  /**
+   * Test for pigeonhole sort correctness with compact counters, including counters promoted to
+   * the side table
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isCompactSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(100_000, -(1 << 20), -(1 << 20) + 100).toArray();
+    long[] longs = random.longs(1000, 0xFFFF_0000L, 0x1_0000_0000L).toArray();
+    int[] expectedInts = ints.clone();
+    long[] expectedLongs = longs.clone();
+    Arrays.sort(expectedInts);
+    Arrays.sort(expectedLongs);
+    PigeonholeSort.sortCompact(ints);
+    PigeonholeSort.sortCompact(longs);
+    assertArrayEquals(expectedInts, ints);
+    assertArrayEquals(expectedLongs, longs);
+    CompactCounts counts = new CompactCounts(100);
+    PigeonholeSort.histogram(ints, -(1 << 20), counts);
+    assertEquals(100, counts.promoted());
+    int[] expectedCounts = new int[100];
+    for (int value : ints) {
+      expectedCounts[value + (1 << 20)]++;
+    }
+    for (int hole = 0; hole < 100; hole++) {
+      assertEquals(expectedCounts[hole], counts.get(hole));
+    }
+  }
+
+  /**
+   * Test for distinct sort correctness and membership of the bitset
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isDistinctSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(10_000, -5000, 5000).toArray();
+    int[] expected = Arrays.stream(ints).distinct().sorted().toArray();
+    assertArrayEquals(expected, PigeonholeSort.sortDistinct(ints));
+    DistinctKeySet set = new DistinctKeySet(ints);
+    assertEquals(expected.length, set.size());
+    for (int key = -5001; key <= 5000; key++) {
+      assertEquals(Arrays.binarySearch(expected, key) >= 0, set.contains(key));
+    }
+    int[] sparse = {1 << 24, -(1 << 24), 0, 1 << 24};
+    assertArrayEquals(new int[]{-(1 << 24), 0, 1 << 24}, PigeonholeSort.sortDistinct(sparse));
+    assertArrayEquals(new int[0], PigeonholeSort.sortDistinct(new int[0]));
+  }
+
+  /**
+   * Test for correctness of smallest, largest and range extraction
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isPartialExtractionValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(1000, -500, 500).toArray();
+    int[] original = ints.clone();
+    int[] sorted = ints.clone();
+    Arrays.sort(sorted);
+    assertArrayEquals(Arrays.copyOf(sorted, 10), PigeonholeSort.smallest(ints, 10));
+    int[] largest = PigeonholeSort.largest(ints, 10);
+    for (int i = 0; i < largest.length; i++) {
+      assertEquals(sorted[sorted.length - 1 - i], largest[i]);
+    }
+    assertArrayEquals(sorted, PigeonholeSort.smallest(ints, 2000));
+    assertEquals(0, PigeonholeSort.largest(ints, 0).length);
+    int[] expectedRange = Arrays.stream(sorted).filter(value -> value >= -20 && value <= 30)
+        .toArray();
+    assertArrayEquals(expectedRange, PigeonholeSort.extractRange(ints, -20, 30));
+    assertEquals(0, PigeonholeSort.extractRange(ints, 600, 700).length);
+    assertArrayEquals(original, ints);
+  }
+
+  /**
+   * Test for argsort stability and permutation of columns
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isArgsortValid() throws Exception {
+    Random random = new Random();
+    int[] keys = random.ints(1000, -20, 20).toArray();
+    int[] permutation = PigeonholeSort.argsort(keys);
+    for (int i = 1; i < permutation.length; i++) {
+      int previous = keys[permutation[i - 1]];
+      int current = keys[permutation[i]];
+      assertTrue(previous < current || previous == current && permutation[i - 1] < permutation[i]);
+    }
+    int[] sortedKeys = keys.clone();
+    long[] indexes = new long[keys.length];
+    double[] halves = new double[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      indexes[i] = i;
+      halves[i] = keys[i] / 2.0;
+    }
+    PigeonholeSort.permute(permutation, new int[][]{sortedKeys}, new long[][]{indexes},
+        new double[][]{halves});
+    int[] expectedKeys = keys.clone();
+    Arrays.sort(expectedKeys);
+    assertArrayEquals(expectedKeys, sortedKeys);
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(permutation[i], indexes[i]);
+      assertEquals(sortedKeys[i] / 2.0, halves[i]);
+    }
+    //an index repeated is rejected before moving anything
+    int[] column = {7, 8, 9};
+    assertThrows(IllegalArgumentException.class, () -> PigeonholeSort.permute(new int[]{2, 0, 2},
+        new int[][]{column}, new long[0][], new double[0][]));
+    assertArrayEquals(new int[]{7, 8, 9}, column);
+  }
+
+  /**
+   * Test for batch sort correctness on arrays and segments, sequential and parallel
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isBatchSortValid() throws Exception {
+    Random random = new Random();
+    int[][] arrays = new int[3000][];
+    int[] offsets = new int[arrays.length + 1];
+    for (int i = 0; i < arrays.length; i++) {
+      arrays[i] = random.ints(random.nextInt(100), -random.nextInt(1000), 1000).toArray();
+      offsets[i + 1] = offsets[i] + arrays[i].length;
+    }
+    int[] data = new int[offsets[arrays.length]];
+    for (int i = 0; i < arrays.length; i++) {
+      System.arraycopy(arrays[i], 0, data, offsets[i], arrays[i].length);
+    }
+    int[] expectedData = data.clone();
+    for (int i = 0; i < arrays.length; i++) {
+      Arrays.sort(expectedData, offsets[i], offsets[i + 1]);
+    }
+    int[][] parallelArrays = new int[arrays.length][];
+    for (int i = 0; i < arrays.length; i++) {
+      parallelArrays[i] = arrays[i].clone();
+    }
+    int[] parallelData = data.clone();
+    PigeonholeSort.sortAll(arrays);
+    PigeonholeSort.sortSegments(data, offsets);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    pool.submit(() -> {
+      PigeonholeSort.parallelSortAll(parallelArrays);
+      PigeonholeSort.parallelSortSegments(parallelData, offsets);
+    }).get();
+    pool.shutdown();
+    assertArrayEquals(expectedData, data);
+    assertArrayEquals(expectedData, parallelData);
+    for (int i = 0; i < arrays.length; i++) {
+      int[] expected = Arrays.copyOfRange(expectedData, offsets[i], offsets[i + 1]);
+      assertArrayEquals(expected, arrays[i]);
+      assertArrayEquals(expected, parallelArrays[i]);
+    }
+  }
+
+  /**
+   * Test for the metrics of a sort and their flight recorder event
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isSortMetricsValid() throws Exception {
+    //enough descents that the scan doesn't merge the runs
+    int[] ints = new int[6 * 30];
+    for (int i = 0; i < ints.length; i += 6) {
+      System.arraycopy(new int[]{5, 3, 3, 9, 3, 7}, 0, ints, i, 6);
+    }
+    int[] expectedInts = ints.clone();
+    Arrays.sort(expectedInts);
+    Path recordingFile = Files.createTempFile("metrics", ".jfr");
+    SortMetrics metrics = new SortMetrics();
+    try (Recording recording = new Recording()) {
+      recording.enable("algorithm.Sort");
+      recording.start();
+      PigeonholeSort.sort(ints, metrics);
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+    assertArrayEquals(expectedInts, ints);
+    assertEquals(SortStrategy.PIGEONHOLE, metrics.strategy());
+    assertEquals(ints.length, metrics.length());
+    assertEquals(3, metrics.min());
+    assertEquals(9, metrics.max());
+    assertEquals(7, metrics.holes());
+    assertEquals(4, metrics.occupiedHoles());
+    assertEquals(90, metrics.maxHoleDepth());
+    assertEquals(4.0 / 7, metrics.occupancy());
+    assertTrue(metrics.allocatedBytes() >= 7 * Integer.BYTES);
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+    Files.delete(recordingFile);
+    assertEquals(1, events.size());
+    assertEquals("PIGEONHOLE", events.get(0).getString("strategy"));
+    assertEquals(90, events.get(0).getLong("maxHoleDepth"));
+    Integer[] boxed = {4, 1, 4};
+    PigeonholeSort.sort(boxed, Integer::intValue, metrics);
+    assertArrayEquals(new Integer[]{1, 4, 4}, boxed);
+    assertEquals(SortStrategy.MERGE, metrics.strategy());
+    assertEquals(0, metrics.holes());
+    int[] sparse = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0};
+    assertEquals(PigeonholeSort.sortAdaptive(sparse, metrics), metrics.strategy());
+    assertEquals(0, metrics.holes());
+  }
+
+  /**
+   * Test for pigeonhole sort correctness on sorted, reversed and partially sorted arrays
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isPresortedSortValid() throws Exception {
+    Random random = new Random();
+    int[] sorted = random.ints(1000, -100, 100).sorted().toArray();
+    int[] reversed = new int[sorted.length];
+    for (int i = 0; i < sorted.length; i++) {
+      reversed[i] = sorted[sorted.length - 1 - i];
+    }
+    int[] runs = new int[sorted.length];
+    int[] firstHalf = Arrays.copyOf(sorted, 500);
+    System.arraycopy(sorted, 500, runs, 0, 500);
+    System.arraycopy(firstHalf, 0, runs, 500, 500);
+    int[] equal = new int[1000];
+    Arrays.fill(equal, 42);
+    int[][] arrays = {sorted.clone(), reversed, runs, equal.clone()};
+    for (int[] array : arrays) {
+      PigeonholeSort.sort(array);
+    }
+    assertArrayEquals(sorted, arrays[0]);
+    assertArrayEquals(sorted, arrays[1]);
+    assertArrayEquals(sorted, arrays[2]);
+    assertArrayEquals(equal, arrays[3]);
+    long[] wideRuns = {0, Long.MAX_VALUE, Long.MIN_VALUE, 1, 2};
+    PigeonholeSort.sort(wideRuns);
+    assertArrayEquals(new long[]{Long.MIN_VALUE, 0, 1, 2, Long.MAX_VALUE}, wideRuns);
+    int[][] pairs = new int[1000][];
+    int[][] descendingPairs = new int[1000][];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = new int[]{(i % 500) / 3, i};
+      descendingPairs[i] = new int[]{-i, i};
+    }
+    PigeonholeSort.sort(pairs, pair -> pair[0]);
+    PigeonholeSort.sort(descendingPairs, pair -> pair[0]);
+    for (int i = 0; i < pairs.length - 1; i++) {
+      assertTrue(pairs[i][0] < pairs[i + 1][0]
+          || (pairs[i][0] == pairs[i + 1][0] && pairs[i][1] < pairs[i + 1][1]));
+      assertEquals(pairs.length - 1 - i, descendingPairs[i][1]);
+    }
+    SortMetrics metrics = new SortMetrics();
+    PigeonholeSort.sort(sorted.clone(), metrics);
+    assertEquals(SortStrategy.SORTED, metrics.strategy());
+    assertEquals(SortStrategy.REVERSE, PigeonholeSort.sortAdaptive(new int[]{9, 7, 7, 2}, metrics));
+    int[] wideInts = {0, Integer.MAX_VALUE, Integer.MIN_VALUE, 1, 2};
+    PigeonholeSort.sort(wideInts, metrics);
+    assertArrayEquals(new int[]{Integer.MIN_VALUE, 0, 1, 2, Integer.MAX_VALUE}, wideInts);
+    assertEquals(SortStrategy.MERGE, metrics.strategy());
+    assertEquals(0, metrics.holes());
+  }
+
+  /**
+   * Test for the events and the saved file of a sort trace
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isSortTraceValid() throws Exception {
+    int[] ints = {5, 3, 3, 9, 3, 7};
+    SortTrace trace = PigeonholeSort.sortTraced(ints);
+    assertArrayEquals(new int[]{3, 3, 3, 5, 7, 9}, ints);
+    assertEquals(16, trace.steps());
+    assertEquals(SortTrace.Phase.SCAN, trace.phase(5));
+    assertEquals(SortTrace.Phase.PLACE, trace.phase(6));
+    assertEquals(SortTrace.Phase.WRITE_BACK, trace.phase(12));
+    assertEquals(2, trace.hole(0));
+    assertEquals(3, trace.depth(4));
+    assertEquals(4, trace.occupiedHoles());
+    assertEquals(2, trace.writtenHole(1));
+    assertEquals(3, trace.writtenPosition(1));
+    assertEquals(3, trace.writtenCount(0));
+    assertEquals(3, trace.min());
+    assertEquals(9, trace.max());
+    assertEquals(0, PigeonholeSort.sortTraced(new int[0]).steps());
+    //larger than the buffer the file is written and read through
+    int[] random = new Random().ints(20_000, -1000, 1000).toArray();
+    int[] values = random.clone();
+    trace = PigeonholeSort.sortTraced(random);
+    Path traceFile = Files.createTempFile("sort", ".trace");
+    trace.writeTo(traceFile);
+    assertEquals(trace.bytes(), Files.size(traceFile));
+    SortTrace loaded = SortTrace.readFrom(traceFile);
+    //a first value above the maximum is rejected
+    byte[] corrupted = Files.readAllBytes(traceFile);
+    ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(24, 1000);
+    Files.write(traceFile, corrupted);
+    assertThrows(IOException.class, () -> SortTrace.readFrom(traceFile));
+    Files.delete(traceFile);
+    assertEquals(trace.steps(), loaded.steps());
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], loaded.value(i));
+      assertEquals(trace.depth(i), loaded.depth(i));
     }
+    assertEquals(trace.writtenPosition(trace.occupiedHoles() - 1),
+        loaded.writtenPosition(loaded.occupiedHoles() - 1));
+    assertEquals(trace.min(), loaded.min());
+    assertEquals(trace.max(), loaded.max());
+    //8 bytes per element and per non empty pigeonhole, plus the header
+    trace = PigeonholeSort.sortTraced(new Random().ints(1_000_000, 0, 1_000_000).toArray());
+    assertTrue(trace.bytes() <= 16_000_024);
   }
 }
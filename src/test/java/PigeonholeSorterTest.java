@@ -0,0 +1,76 @@
+/**
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import algorithm.PigeonholeSorter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit testing for reusable pigeonhole sorter class
+ */
+public class PigeonholeSorterTest {
+
+  /**
+   * Test for correctness of a sorter reused on batches of different ranges and lengths, some of
+   * them longer than the retained buffers
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isReusedSorterValid() throws Exception {
+    Random random = new Random();
+    PigeonholeSorter sorter = new PigeonholeSorter(1000);
+    for (int batch = 0; batch < 50; batch++) {
+      int range = 1 + random.nextInt(2000);
+      int[] ints = random.ints(random.nextInt(2000), -range, range).toArray();
+      long[] longs = random.longs(random.nextInt(2000), -range, range).toArray();
+      int[][] pairs = new int[random.nextInt(2000)][];
+      for (int i = 0; i < pairs.length; i++) {
+        pairs[i] = new int[]{random.nextInt(range), i};
+      }
+      int[] expectedInts = ints.clone();
+      long[] expectedLongs = longs.clone();
+      Arrays.sort(expectedInts);
+      Arrays.sort(expectedLongs);
+      sorter.sort(ints);
+      sorter.sort(longs);
+      sorter.sort(pairs, pair -> pair[0]);
+      assertArrayEquals(expectedInts, ints);
+      assertArrayEquals(expectedLongs, longs);
+      for (int i = 0; i < pairs.length - 1; i++) {
+        assertTrue(pairs[i][0] < pairs[i + 1][0]
+            || (pairs[i][0] == pairs[i + 1][0] && pairs[i][1] < pairs[i + 1][1]));
+      }
+    }
+  }
+
+  /**
+   * Test that a thread always gets the same sorter
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isThreadSorterReused() throws Exception {
+    assertSame(PigeonholeSorter.forCurrentThread(), PigeonholeSorter.forCurrentThread());
+  }
+}
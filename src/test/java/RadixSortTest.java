@@ -0,0 +1,78 @@
+/**
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import algorithm.RadixSort;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit testing for radix sort class
+ */
+public class RadixSortTest {
+
+  /**
+   * Test for radix sort correctness on full range int and long values
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isRadixSortValid() throws Exception {
+    Random random = new Random();
+    int[] ints = random.ints(10_000).toArray();
+    long[] longs = random.longs(10_000).toArray();
+    //keys sharing all the high digits exercise the skipped passes
+    int[] narrowInts = random.ints(10_000, -100, 100).toArray();
+    int[] expectedInts = ints.clone();
+    long[] expectedLongs = longs.clone();
+    int[] expectedNarrowInts = narrowInts.clone();
+    Arrays.sort(expectedInts);
+    Arrays.sort(expectedLongs);
+    Arrays.sort(expectedNarrowInts);
+    RadixSort.sort(ints);
+    RadixSort.sort(longs);
+    RadixSort.sort(narrowInts);
+    assertArrayEquals(expectedInts, ints);
+    assertArrayEquals(expectedLongs, longs);
+    assertArrayEquals(expectedNarrowInts, narrowInts);
+  }
+
+  /**
+   * Test for radix sort stability when sorting by a key extractor
+   *
+   * @throws Exception
+   */
+  @Test
+  public void isKeyRadixSortStable() throws Exception {
+    Random random = new Random();
+    //each element is a pair of key, negative or positive and spread over most of the int range,
+    //and original position
+    int[][] pairs = new int[10_000][];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = new int[]{random.nextInt(1000) * 1_000_000 - 500_000_000, i};
+    }
+    RadixSort.sort(pairs, pair -> pair[0]);
+    for (int i = 0; i < pairs.length - 1; i++) {
+      assertTrue(pairs[i][0] < pairs[i + 1][0]
+          || (pairs[i][0] == pairs[i + 1][0] && pairs[i][1] < pairs[i + 1][1]));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of PigeonholeSort
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algorithm;
+
+import static algorithm.PigeonholeSort.SUB_HISTOGRAMS;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels written with the Vector API of the jdk.incubator.vector module, loaded by
+ * {@link SortKernels#load()} when the module is present. Vectors have the preferred shape of the
+ * platform, so 8 ints on AVX2 and 16 on AVX-512.
+ */
+final class VectorSortKernels implements SortKernels {
+
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+  /**
+   * Histogram counting the values of every lane of an int vector, round robin.
+   */
+  private static final int[] LANE_HISTOGRAMS = new int[INTS.length()];
+
+  static {
+    for (int lane = 0; lane < LANE_HISTOGRAMS.length; lane++) {
+      LANE_HISTOGRAMS[lane] = lane % SUB_HISTOGRAMS;
+    }
+  }
+
+  @Override
+  public int[] minMax(int[] array, int from, int min, int max) {
+    int i = from;
+    int bound = from + INTS.loopBound(array.length - from);
+    if (i < bound) {
+      IntVector mins = IntVector.broadcast(INTS, min);
+      IntVector maxs = mins.broadcast(max);
+      for (; i < bound; i += INTS.length()) {
+        IntVector values = IntVector.fromArray(INTS, array, i);
+        mins = mins.min(values);
+        maxs = maxs.max(values);
+      }
+      min = mins.reduceLanes(VectorOperators.MIN);
+      max = maxs.reduceLanes(VectorOperators.MAX);
+    }
+    for (; i < array.length; i++) {
+      min = Math.min(min, array[i]);
+      max = Math.max(max, array[i]);
+    }
+    return new int[]{min, max};
+  }
+
+  @Override
+  public long[] minMax(long[] array, int from, long min, long max) {
+    int i = from;
+    int bound = from + LONGS.loopBound(array.length - from);
+    if (i < bound) {
+      LongVector mins = LongVector.broadcast(LONGS, min);
+      LongVector maxs = mins.broadcast(max);
+      for (; i < bound; i += LONGS.length()) {
+        LongVector values = LongVector.fromArray(LONGS, array, i);
+        mins = mins.min(values);
+        maxs = maxs.max(values);
+      }
+      min = mins.reduceLanes(VectorOperators.MIN);
+      max = maxs.reduceLanes(VectorOperators.MAX);
+    }
+    for (; i < array.length; i++) {
+      min = Math.min(min, array[i]);
+      max = Math.max(max, array[i]);
+    }
+    return new long[]{min, max};
+  }
+
+  @Override
+  public void countInterleaved(int[] array, int min, int holes, int[] counts) {
+    //offset of the pigeonholes of every lane, the subtraction of the minimum included
+    IntVector offsets = IntVector.fromArray(INTS, LANE_HISTOGRAMS, 0).mul(holes).sub(min);
+    int[] indexes = new int[INTS.length()];
+    int i = 0;
+    for (int bound = INTS.loopBound(array.length); i < bound; i += INTS.length()) {
+      //the counters are incremented one by one, there's no conflict free scatter to use
+      IntVector.fromArray(INTS, array, i).add(offsets).intoArray(indexes, 0);
+      for (int index : indexes) {
+        counts[index]++;
+      }
+    }
+    for (; i < array.length; i++) {
+      counts[array[i] - min]++;
+    }
+  }
+}